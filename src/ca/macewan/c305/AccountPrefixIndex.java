@@ -0,0 +1,129 @@
+package ca.macewan.c305;
+
+import java.util.Arrays;
+
+/**
+ * AccountPrefixIndex answers "every account number that starts with these digits".
+ *
+ * The account numbers are kept sorted together with their rows. The numbers that start with
+ * a prefix such as 10034 form one contiguous run for each possible length (10034, 100340-100349,
+ * 1003400-1003499, ...), so a search is a few binary searches and array copies, with no String
+ * made per row.
+ */
+public class AccountPrefixIndex {
+    // Number of digits in Integer.MAX_VALUE
+    private static final int MAX_DIGITS = 10;
+
+    private final int[] accounts;
+    private final int[] rows;
+
+    /**
+     * Builds the index over the first size elements of an account number column
+     *
+     * @param accountNums account numbers by row
+     * @param size number of rows
+     */
+    public AccountPrefixIndex(int[] accountNums, int size) {
+        // Sort (account, row) pairs packed in longs, rows of equal accounts stay in order
+        long[] pairs = new long[size];
+        for (int row = 0; row < size; row++) {
+            pairs[row] = ((long) accountNums[row] << 32) | row;
+        }
+        Arrays.sort(pairs);
+        accounts = new int[size];
+        rows = new int[size];
+        for (int i = 0; i < size; i++) {
+            accounts[i] = (int) (pairs[i] >> 32);
+            rows[i] = (int) pairs[i];
+        }
+    }
+
+    /**
+     * Finds the rows whose account number, written in decimal, starts with the prefix
+     *
+     * @param prefix digits the account number starts with
+     * @return the matching rows in increasing order
+     */
+    public int[] findRows(String prefix) {
+        if (prefix.isEmpty()) {
+            int[] all = rows.clone();
+            Arrays.sort(all);
+            return all;
+        }
+        if (!isDigits(prefix)) {
+            return findRowsByText(prefix);
+        }
+        if (prefix.length() > MAX_DIGITS || (prefix.charAt(0) == '0' && prefix.length() > 1)) {
+            return new int[0]; // no int is written this way
+        }
+
+        long value = Long.parseLong(prefix);
+        int[] found = new int[0];
+        int count = 0;
+        long scale = 1;
+        for (int extraDigits = 0; prefix.length() + extraDigits <= MAX_DIGITS; extraDigits++, scale *= 10) {
+            if (value == 0 && extraDigits > 0) {
+                break; // only 0 itself starts with "0"
+            }
+            long low = value * scale;
+            long high = (value + 1) * scale - 1;
+            if (low > Integer.MAX_VALUE) {
+                break;
+            }
+            int from = lowerBound(low);
+            int to = lowerBound(Math.min(high, Integer.MAX_VALUE) + 1);
+            if (to > from) {
+                if (count + to - from > found.length) {
+                    found = Arrays.copyOf(found, Math.max(count + to - from, found.length * 2));
+                }
+                System.arraycopy(rows, from, found, count, to - from);
+                count += to - from;
+            }
+        }
+        found = Arrays.copyOf(found, count);
+        Arrays.sort(found);
+        return found;
+    }
+
+    /**
+     * Fallback for prefixes that are not plain digits, such as a minus sign
+     */
+    private int[] findRowsByText(String prefix) {
+        int[] found = new int[accounts.length];
+        int count = 0;
+        for (int i = 0; i < accounts.length; i++) {
+            if (Integer.toString(accounts[i]).startsWith(prefix)) {
+                found[count++] = rows[i];
+            }
+        }
+        found = Arrays.copyOf(found, count);
+        Arrays.sort(found);
+        return found;
+    }
+
+    /**
+     * Returns the position of the first account that is not less than the key
+     */
+    private int lowerBound(long key) {
+        int low = 0;
+        int high = accounts.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (accounts[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static boolean isDigits(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) < '0' || text.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,196 @@
+package ca.macewan.c305;
+
+import java.util.Arrays;
+
+/**
+ * AddressIndex finds the rows whose address contains a piece of text without scanning every row.
+ *
+ * Every run of three characters (trigram) of every address is indexed with the sorted list of
+ * rows that contain it. A search intersects the lists of the trigrams in the search text and
+ * then checks only the rows that are left, so the cost depends on the number of candidates
+ * instead of the number of rows. Searches shorter than a trigram fall back to a scan.
+ */
+public class AddressIndex {
+    private static final int GRAM_LENGTH = 3;
+    private static final int EMPTY = -1;
+
+    private final AssessmentColumns columns;
+    // Open addressing map from a packed trigram to its id
+    private long[] gramKeys = new long[1024];
+    private int[] gramIds = new int[1024];
+    private int gramCount;
+    // Rows of trigram id g are postings[offsets[g]] to postings[offsets[g + 1] - 1]
+    private final int[] offsets;
+    private final int[] postings;
+
+    /**
+     * Builds the index over every row of a column store
+     *
+     * @param columns rows to index, must not change while the index is used
+     */
+    public AddressIndex(AssessmentColumns columns) {
+        this.columns = columns;
+        Arrays.fill(gramIds, EMPTY);
+        int size = columns.size();
+        String[] addresses = new String[size];
+
+        // First pass: number the trigrams and count the rows of each
+        int[] counts = new int[256];
+        int[] lastRow = new int[256];
+        Arrays.fill(lastRow, EMPTY);
+        for (int row = 0; row < size; row++) {
+            String address = columns.getAddressText(row);
+            addresses[row] = address;
+            for (int i = 0; i + GRAM_LENGTH <= address.length(); i++) {
+                int id = addGram(pack(address, i));
+                if (id >= counts.length) {
+                    counts = Arrays.copyOf(counts, counts.length * 2);
+                    int oldLength = lastRow.length;
+                    lastRow = Arrays.copyOf(lastRow, counts.length);
+                    Arrays.fill(lastRow, oldLength, lastRow.length, EMPTY);
+                }
+                if (lastRow[id] != row) {
+                    lastRow[id] = row;
+                    counts[id]++;
+                }
+            }
+        }
+
+        offsets = new int[gramCount + 1];
+        for (int id = 0; id < gramCount; id++) {
+            offsets[id + 1] = offsets[id] + counts[id];
+        }
+
+        // Second pass: fill the row lists, rows are added in increasing order
+        postings = new int[offsets[gramCount]];
+        int[] next = Arrays.copyOf(offsets, gramCount);
+        Arrays.fill(lastRow, EMPTY);
+        for (int row = 0; row < size; row++) {
+            String address = addresses[row];
+            for (int i = 0; i + GRAM_LENGTH <= address.length(); i++) {
+                int id = findGram(pack(address, i));
+                if (lastRow[id] != row) {
+                    lastRow[id] = row;
+                    postings[next[id]++] = row;
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the rows whose address text contains the search text
+     *
+     * @param search text to look for, compared exactly
+     * @return the matching rows in increasing order
+     */
+    public int[] findRows(String search) {
+        if (search.length() < GRAM_LENGTH) {
+            return scan(search, null, columns.size());
+        }
+
+        // Start from the shortest row list and drop rows missing from the others
+        int gramTotal = search.length() - GRAM_LENGTH + 1;
+        int[] ids = new int[gramTotal];
+        for (int i = 0; i < gramTotal; i++) {
+            ids[i] = findGram(pack(search, i));
+            if (ids[i] == EMPTY) {
+                return new int[0];
+            }
+        }
+        Integer[] order = new Integer[gramTotal];
+        for (int i = 0; i < gramTotal; i++) {
+            order[i] = ids[i];
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(listSize(a), listSize(b)));
+
+        int first = order[0];
+        int[] candidates = Arrays.copyOfRange(postings, offsets[first], offsets[first + 1]);
+        int count = candidates.length;
+        for (int i = 1; i < gramTotal && count > 0; i++) {
+            int id = order[i];
+            int kept = 0;
+            for (int c = 0; c < count; c++) {
+                if (Arrays.binarySearch(postings, offsets[id], offsets[id + 1], candidates[c]) >= 0) {
+                    candidates[kept++] = candidates[c];
+                }
+            }
+            count = kept;
+        }
+
+        // The trigrams may be in the wrong order, so check the candidates themselves
+        return scan(search, candidates, count);
+    }
+
+    private int[] scan(String search, int[] rows, int count) {
+        int[] found = new int[count];
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            int row = rows == null ? i : rows[i];
+            if (columns.getAddressText(row).contains(search)) {
+                found[kept++] = row;
+            }
+        }
+        return Arrays.copyOf(found, kept);
+    }
+
+    private int listSize(int id) {
+        return offsets[id + 1] - offsets[id];
+    }
+
+    private static long pack(String text, int start) {
+        return ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16) | text.charAt(start + 2);
+    }
+
+    private int findGram(long key) {
+        int mask = gramKeys.length - 1;
+        int slot = hash(key) & mask;
+        while (gramIds[slot] != EMPTY) {
+            if (gramKeys[slot] == key) {
+                return gramIds[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return EMPTY;
+    }
+
+    private int addGram(long key) {
+        int mask = gramKeys.length - 1;
+        int slot = hash(key) & mask;
+        while (gramIds[slot] != EMPTY) {
+            if (gramKeys[slot] == key) {
+                return gramIds[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        gramKeys[slot] = key;
+        gramIds[slot] = gramCount;
+        if (++gramCount * 2 > gramKeys.length) {
+            rehash();
+        }
+        return gramCount - 1;
+    }
+
+    private void rehash() {
+        long[] oldKeys = gramKeys;
+        int[] oldIds = gramIds;
+        gramKeys = new long[oldKeys.length * 2];
+        gramIds = new int[oldKeys.length * 2];
+        Arrays.fill(gramIds, EMPTY);
+        int mask = gramKeys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldIds[i] != EMPTY) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (gramIds[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                gramKeys[slot] = oldKeys[i];
+                gramIds[slot] = oldIds[i];
+            }
+        }
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,581 @@
+package ca.macewan.c305;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * AssessmentColumns stores property assessments column by column in primitive arrays.
+ *
+ * Row i of the store is made of element i of every column. Text columns are dictionary
+ * encoded: they hold int codes into dictionaries. The class, neighbourhood, ward and garage
+ * columns have a few hundred values between them, so their dictionaries are shared by every
+ * store. The address columns have a value for nearly every row, so their dictionaries belong to
+ * one dataset: they are shared only by the stores made from it with emptyCopy(), and are freed
+ * with it. Codes are copied directly between stores that share dictionaries. A row costs about
+ * 56 bytes instead of the five objects and separate Strings of a PropertyAssessment, and scans
+ * over one column only touch that column.
+ *
+ * Account numbers are also kept in a hash index as rows are added, for constant time lookups.
+ * The sorted index for prefix searches is built on the first search after the store changes.
+ */
+public class AssessmentColumns {
+    public static final StringDictionary CLASSES = new StringDictionary();
+    public static final StringDictionary NEIGHBOURHOODS = new StringDictionary();
+    public static final StringDictionary WARDS = new StringDictionary();
+    public static final StringDictionary GARAGES = new StringDictionary();
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final StringDictionary suites;
+    private final StringDictionary houseNumbers;
+    private final StringDictionary streetNames;
+    private int size;
+    private int[] accountNums = new int[INITIAL_CAPACITY];
+    private int[] values = new int[INITIAL_CAPACITY];
+    private int[] suiteCodes = new int[INITIAL_CAPACITY];
+    private int[] houseNumCodes = new int[INITIAL_CAPACITY];
+    private int[] streetCodes = new int[INITIAL_CAPACITY];
+    private int[] classCodes = new int[INITIAL_CAPACITY];
+    private int[] neighbourhoodIds = new int[INITIAL_CAPACITY];
+    private int[] neighbourhoodCodes = new int[INITIAL_CAPACITY];
+    private int[] wardCodes = new int[INITIAL_CAPACITY];
+    private int[] garageCodes = new int[INITIAL_CAPACITY];
+    private double[] latitudes = new double[INITIAL_CAPACITY];
+    private double[] longitudes = new double[INITIAL_CAPACITY];
+    private final IntHashIndex accountIndex = new IntHashIndex();
+    private final RowPostings classRows = new RowPostings();
+    private final RowPostings neighbourhoodRows = new RowPostings();
+    private final RowPostings wardRows = new RowPostings();
+    private final StatisticsAccumulator valueStatistics = new StatisticsAccumulator();
+    private final CodeStatistics classStatistics = new CodeStatistics();
+    private final CodeStatistics neighbourhoodStatistics = new CodeStatistics();
+    private final CodeStatistics wardStatistics = new CodeStatistics();
+    // Built when first needed, possibly by a background search, so published through volatile
+    private volatile AccountPrefixIndex prefixIndex;
+    private volatile AddressIndex addressIndex;
+    private volatile SpatialIndex spatialIndex;
+
+    /**
+     * Creates an empty store with its own address dictionaries, e.g. for a new dataset
+     */
+    public AssessmentColumns() {
+        this(new StringDictionary(), new StringDictionary(), new StringDictionary());
+    }
+
+    private AssessmentColumns(StringDictionary suites, StringDictionary houseNumbers, StringDictionary streetNames) {
+        this.suites = suites;
+        this.houseNumbers = houseNumbers;
+        this.streetNames = streetNames;
+    }
+
+    /**
+     * Creates an empty store that shares the dictionaries of this one, e.g. for a subset of its
+     * rows or a batch of the same load
+     *
+     * @return an empty store
+     */
+    public AssessmentColumns emptyCopy() {
+        return new AssessmentColumns(suites, houseNumbers, streetNames);
+    }
+
+    /**
+     * Fills an empty store with whole columns, e.g. ones read back from a snapshot. The arrays
+     * become part of the store and must all have the same length.
+     *
+     * @param size number of rows
+     * @param accountNums account number column
+     * @param values assessed value column
+     * @param neighbourhoodIds neighbourhood id column
+     * @param textColumns code columns of the dictionaries of textDictionaries(), in that order
+     * @param latitudes latitude column
+     * @param longitudes longitude column
+     */
+    void setColumns(int size, int[] accountNums, int[] values, int[] neighbourhoodIds,
+                    int[][] textColumns, double[] latitudes, double[] longitudes) {
+        if (this.size != 0) {
+            throw new IllegalStateException("The store already has " + this.size + " rows");
+        }
+        this.accountNums = accountNums;
+        this.values = values;
+        this.neighbourhoodIds = neighbourhoodIds;
+        this.suiteCodes = textColumns[0];
+        this.houseNumCodes = textColumns[1];
+        this.streetCodes = textColumns[2];
+        this.classCodes = textColumns[3];
+        this.neighbourhoodCodes = textColumns[4];
+        this.wardCodes = textColumns[5];
+        this.garageCodes = textColumns[6];
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        for (int row = 0; row < size; row++) {
+            indexRow(row);
+            countValue(row);
+        }
+        this.size = size;
+    }
+
+    /**
+     * Appends a property assessment as a new row
+     *
+     * @param propertyAssessment assessment to add
+     * @return the row the assessment was stored in
+     */
+    public int add(PropertyAssessment propertyAssessment) {
+        Address address = propertyAssessment.getAddress();
+        Neighbourhood neighbourhood = propertyAssessment.getNeighbourhood();
+        return add(propertyAssessment.getAccountNum(), suites.getCode(address.getSuite()),
+                houseNumbers.getCode(address.getHouseNum()), streetNames.getCode(address.getStreetName()),
+                propertyAssessment.getValue(), CLASSES.getCode(propertyAssessment.getClassification()),
+                (int) neighbourhood.getID(), NEIGHBOURHOODS.getCode(neighbourhood.getNeighbourhood()),
+                WARDS.getCode(neighbourhood.getWard()), GARAGES.getCode(propertyAssessment.getGarage()),
+                propertyAssessment.getLatitude(), propertyAssessment.getLongitude());
+    }
+
+    /**
+     * Appends a row of already encoded values, e.g. ones parsed straight from a .csv line.
+     * The text codes are codes of this store's dictionaries, see textDictionaries().
+     *
+     * @return the row the values were stored in
+     */
+    public int add(int accountNum, int suiteCode, int houseNumCode, int streetCode, int value, int classCode,
+                   int neighbourhoodId, int neighbourhoodCode, int wardCode, int garageCode,
+                   double latitude, double longitude) {
+        ensureCapacity(size + 1);
+        accountNums[size] = accountNum;
+        values[size] = value;
+        suiteCodes[size] = suiteCode;
+        houseNumCodes[size] = houseNumCode;
+        streetCodes[size] = streetCode;
+        classCodes[size] = classCode;
+        neighbourhoodIds[size] = neighbourhoodId;
+        neighbourhoodCodes[size] = neighbourhoodCode;
+        wardCodes[size] = wardCode;
+        garageCodes[size] = garageCode;
+        latitudes[size] = latitude;
+        longitudes[size] = longitude;
+        indexRow(size);
+        countValue(size);
+        prefixIndex = null;
+        addressIndex = null;
+        spatialIndex = null;
+        return size++;
+    }
+
+    /**
+     * Appends one row of another store
+     *
+     * @param other store to copy from
+     * @param row row of the other store
+     * @return the row the copy was stored in
+     */
+    public int addRow(AssessmentColumns other, int row) {
+        ensureCapacity(size + 1);
+        accountNums[size] = other.accountNums[row];
+        values[size] = other.values[row];
+        if (sharesDictionaries(other)) {
+            suiteCodes[size] = other.suiteCodes[row];
+            houseNumCodes[size] = other.houseNumCodes[row];
+            streetCodes[size] = other.streetCodes[row];
+        } else {
+            suiteCodes[size] = suites.getCode(other.suites.getString(other.suiteCodes[row]));
+            houseNumCodes[size] = houseNumbers.getCode(other.houseNumbers.getString(other.houseNumCodes[row]));
+            streetCodes[size] = streetNames.getCode(other.streetNames.getString(other.streetCodes[row]));
+        }
+        classCodes[size] = other.classCodes[row];
+        neighbourhoodIds[size] = other.neighbourhoodIds[row];
+        neighbourhoodCodes[size] = other.neighbourhoodCodes[row];
+        wardCodes[size] = other.wardCodes[row];
+        garageCodes[size] = other.garageCodes[row];
+        latitudes[size] = other.latitudes[row];
+        longitudes[size] = other.longitudes[row];
+        indexRow(size);
+        countValue(size);
+        prefixIndex = null;
+        addressIndex = null;
+        spatialIndex = null;
+        return size++;
+    }
+
+    /**
+     * Appends every row of another store
+     *
+     * @param other store to copy from
+     */
+    public void addAll(AssessmentColumns other) {
+        if (!sharesDictionaries(other)) {
+            for (int row = 0; row < other.size; row++) {
+                addRow(other, row);
+            }
+            return;
+        }
+        int n = other.size;
+        ensureCapacity(size + n);
+        System.arraycopy(other.accountNums, 0, accountNums, size, n);
+        System.arraycopy(other.values, 0, values, size, n);
+        System.arraycopy(other.suiteCodes, 0, suiteCodes, size, n);
+        System.arraycopy(other.houseNumCodes, 0, houseNumCodes, size, n);
+        System.arraycopy(other.streetCodes, 0, streetCodes, size, n);
+        System.arraycopy(other.classCodes, 0, classCodes, size, n);
+        System.arraycopy(other.neighbourhoodIds, 0, neighbourhoodIds, size, n);
+        System.arraycopy(other.neighbourhoodCodes, 0, neighbourhoodCodes, size, n);
+        System.arraycopy(other.wardCodes, 0, wardCodes, size, n);
+        System.arraycopy(other.garageCodes, 0, garageCodes, size, n);
+        System.arraycopy(other.latitudes, 0, latitudes, size, n);
+        System.arraycopy(other.longitudes, 0, longitudes, size, n);
+        for (int i = 0; i < n; i++) {
+            indexRow(size + i);
+        }
+        valueStatistics.combine(other.valueStatistics);
+        classStatistics.combine(other.classStatistics);
+        neighbourhoodStatistics.combine(other.neighbourhoodStatistics);
+        wardStatistics.combine(other.wardStatistics);
+        size += n;
+        prefixIndex = null;
+        addressIndex = null;
+        spatialIndex = null;
+    }
+
+    public void clear() {
+        size = 0;
+        accountIndex.clear();
+        classRows.clear();
+        neighbourhoodRows.clear();
+        wardRows.clear();
+        valueStatistics.clear();
+        classStatistics.clear();
+        neighbourhoodStatistics.clear();
+        wardStatistics.clear();
+        prefixIndex = null;
+        addressIndex = null;
+        spatialIndex = null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Creates a PropertyAssessment object holding the values of a row
+     *
+     * @param row row to read
+     * @return a new property assessment
+     */
+    public PropertyAssessment get(int row) {
+        checkRow(row);
+        Address address = new Address(suites.getString(suiteCodes[row]),
+                houseNumbers.getString(houseNumCodes[row]), streetNames.getString(streetCodes[row]));
+        Neighbourhood neighbourhood = Neighbourhood.of(neighbourhoodIds[row],
+                NEIGHBOURHOODS.getString(neighbourhoodCodes[row]), WARDS.getString(wardCodes[row]));
+        Location location = new Location(latitudes[row], longitudes[row]);
+        return new PropertyAssessment(accountNums[row], address, values[row],
+                CLASSES.getString(classCodes[row]), neighbourhood, GARAGES.getString(garageCodes[row]), location);
+    }
+
+    /**
+     * Returns a read only list that creates the PropertyAssessment of a row when it is asked for
+     *
+     * @return list view of the rows
+     */
+    public List<PropertyAssessment> asList() {
+        return new AbstractList<PropertyAssessment>() {
+            @Override
+            public PropertyAssessment get(int index) {
+                return AssessmentColumns.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Returns the address of a row as it is printed by Address.toString()
+     *
+     * @param row row to read
+     * @return the address text
+     */
+    public String getAddressText(int row) {
+        checkRow(row);
+        return (suites.getString(suiteCodes[row]) + " " + houseNumbers.getString(houseNumCodes[row])
+                + " " + streetNames.getString(streetCodes[row])).strip();
+    }
+
+    /**
+     * Finds the row of an account number in constant time
+     *
+     * @param accountNum account number to look up
+     * @return the first row with the account number, or IntHashIndex.NOT_FOUND
+     */
+    public int findAccount(int accountNum) {
+        return accountIndex.get(accountNum);
+    }
+
+    /**
+     * Finds the rows whose account number starts with the given digits
+     *
+     * @param prefix digits the account number starts with
+     * @return the matching rows in increasing order
+     */
+    public int[] findAccountPrefix(String prefix) {
+        AccountPrefixIndex index = prefixIndex;
+        if (index == null) {
+            index = new AccountPrefixIndex(accountNums, size);
+            prefixIndex = index;
+        }
+        return index.findRows(prefix);
+    }
+
+    /**
+     * Returns the statistics of every assessed value, kept up to date as rows are added
+     *
+     * @return a copy of the statistics
+     */
+    public StatisticsAccumulator getValueStatistics() {
+        return new StatisticsAccumulator(valueStatistics);
+    }
+
+    /**
+     * Returns the statistics of the assessed values of one assessment class
+     *
+     * @param code CLASSES code
+     * @return a copy of the statistics, empty if no row has the code
+     */
+    public StatisticsAccumulator getClassStatistics(int code) {
+        return classStatistics.get(code);
+    }
+
+    /**
+     * Returns the statistics of the assessed values of one neighbourhood name
+     *
+     * @param code NEIGHBOURHOODS code
+     * @return a copy of the statistics, empty if no row has the code
+     */
+    public StatisticsAccumulator getNeighbourhoodStatistics(int code) {
+        return neighbourhoodStatistics.get(code);
+    }
+
+    /**
+     * Returns the statistics of the assessed values of one ward
+     *
+     * @param code WARDS code
+     * @return a copy of the statistics, empty if no row has the code
+     */
+    public StatisticsAccumulator getWardStatistics(int code) {
+        return wardStatistics.get(code);
+    }
+
+    /**
+     * Finds the rows whose assessment class code is marked in matches
+     *
+     * @param matches array indexed by CLASSES code
+     * @return the matching rows in increasing order
+     */
+    public int[] findClassRows(boolean[] matches) {
+        return classRows.findRows(matches);
+    }
+
+    /**
+     * Finds the rows whose neighbourhood name code is marked in matches
+     *
+     * @param matches array indexed by NEIGHBOURHOODS code
+     * @return the matching rows in increasing order
+     */
+    public int[] findNeighbourhoodRows(boolean[] matches) {
+        return neighbourhoodRows.findRows(matches);
+    }
+
+    /**
+     * Finds the rows whose ward code is marked in matches
+     *
+     * @param matches array indexed by WARDS code
+     * @return the matching rows in increasing order
+     */
+    public int[] findWardRows(boolean[] matches) {
+        return wardRows.findRows(matches);
+    }
+
+    /**
+     * Finds the rows whose address text contains the search text
+     *
+     * @param search text to look for, compared exactly
+     * @return the matching rows in increasing order
+     */
+    public int[] findAddress(String search) {
+        AddressIndex index = addressIndex;
+        if (index == null) {
+            index = new AddressIndex(this);
+            addressIndex = index;
+        }
+        return index.findRows(search);
+    }
+
+    /**
+     * Returns the index of the row locations, built when first asked for after a change
+     *
+     * @return the spatial index
+     */
+    public SpatialIndex getSpatialIndex() {
+        SpatialIndex index = spatialIndex;
+        if (index == null) {
+            index = new SpatialIndex(this);
+            spatialIndex = index;
+        }
+        return index;
+    }
+
+    public int getAccountNum(int row) {
+        checkRow(row);
+        return accountNums[row];
+    }
+
+    public int getValue(int row) {
+        checkRow(row);
+        return values[row];
+    }
+
+    public double getLatitude(int row) {
+        checkRow(row);
+        return latitudes[row];
+    }
+
+    public double getLongitude(int row) {
+        checkRow(row);
+        return longitudes[row];
+    }
+
+    public int getClassCode(int row) {
+        checkRow(row);
+        return classCodes[row];
+    }
+
+    public int getNeighbourhoodCode(int row) {
+        checkRow(row);
+        return neighbourhoodCodes[row];
+    }
+
+    public int getWardCode(int row) {
+        checkRow(row);
+        return wardCodes[row];
+    }
+
+    public int getGarageCode(int row) {
+        checkRow(row);
+        return garageCodes[row];
+    }
+
+    /*
+     * The raw columns below are for scans over the whole store. Only the first size() elements
+     * are rows and the arrays must not be changed.
+     */
+
+    int[] accountNumColumn() {
+        return accountNums;
+    }
+
+    int[] valueColumn() {
+        return values;
+    }
+
+    int[] classColumn() {
+        return classCodes;
+    }
+
+    int[] neighbourhoodColumn() {
+        return neighbourhoodCodes;
+    }
+
+    int[] wardColumn() {
+        return wardCodes;
+    }
+
+    int[] neighbourhoodIdColumn() {
+        return neighbourhoodIds;
+    }
+
+    double[] latitudeColumn() {
+        return latitudes;
+    }
+
+    double[] longitudeColumn() {
+        return longitudes;
+    }
+
+    StringDictionary suiteDictionary() {
+        return suites;
+    }
+
+    StringDictionary houseNumberDictionary() {
+        return houseNumbers;
+    }
+
+    StringDictionary streetNameDictionary() {
+        return streetNames;
+    }
+
+    /**
+     * @return the dictionaries of the text columns, in the order of textColumns() and setColumns()
+     */
+    StringDictionary[] textDictionaries() {
+        return new StringDictionary[] {suites, houseNumbers, streetNames, CLASSES, NEIGHBOURHOODS, WARDS, GARAGES};
+    }
+
+    /**
+     * @return the code columns of the dictionaries of textDictionaries(), in that order
+     */
+    int[][] textColumns() {
+        return new int[][] {suiteCodes, houseNumCodes, streetCodes, classCodes,
+                neighbourhoodCodes, wardCodes, garageCodes};
+    }
+
+    /**
+     * Adds a filled in row to the indexes that are kept up to date on every add
+     */
+    private void indexRow(int row) {
+        accountIndex.put(accountNums[row], row);
+        classRows.add(classCodes[row], row);
+        neighbourhoodRows.add(neighbourhoodCodes[row], row);
+        wardRows.add(wardCodes[row], row);
+    }
+
+    /**
+     * Adds the value of a filled in row to the running statistics
+     */
+    private void countValue(int row) {
+        valueStatistics.add(values[row]);
+        classStatistics.add(classCodes[row], values[row]);
+        neighbourhoodStatistics.add(neighbourhoodCodes[row], values[row]);
+        wardStatistics.add(wardCodes[row], values[row]);
+    }
+
+    private boolean sharesDictionaries(AssessmentColumns other) {
+        return other.suites == suites && other.houseNumbers == houseNumbers && other.streetNames == streetNames;
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= accountNums.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, accountNums.length + (accountNums.length >> 1));
+        accountNums = Arrays.copyOf(accountNums, newCapacity);
+        values = Arrays.copyOf(values, newCapacity);
+        suiteCodes = Arrays.copyOf(suiteCodes, newCapacity);
+        houseNumCodes = Arrays.copyOf(houseNumCodes, newCapacity);
+        streetCodes = Arrays.copyOf(streetCodes, newCapacity);
+        classCodes = Arrays.copyOf(classCodes, newCapacity);
+        neighbourhoodIds = Arrays.copyOf(neighbourhoodIds, newCapacity);
+        neighbourhoodCodes = Arrays.copyOf(neighbourhoodCodes, newCapacity);
+        wardCodes = Arrays.copyOf(wardCodes, newCapacity);
+        garageCodes = Arrays.copyOf(garageCodes, newCapacity);
+        latitudes = Arrays.copyOf(latitudes, newCapacity);
+        longitudes = Arrays.copyOf(longitudes, newCapacity);
+    }
+}
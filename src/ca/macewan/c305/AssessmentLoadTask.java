@@ -0,0 +1,52 @@
+package ca.macewan.c305;
+
+import javafx.concurrent.Task;
+
+import java.io.IOException;
+
+/**
+ * AssessmentLoadTask loads a property assessment .csv file on a background thread.
+ *
+ * The progress of the task is the number of bytes read out of the size of the file and its
+ * message counts the rows parsed, so both can be bound to a progress bar and a label. The
+ * statistics of the loaded collection are computed before the task succeeds, so showing them
+ * afterwards does not pause the user interface.
+ *
+ * A file that was loaded before is read back from its AssessmentSnapshot instead of being
+ * parsed again, and a snapshot is saved after every parse.
+ */
+public class AssessmentLoadTask extends Task<PropertyAssessments> {
+    private final String filename;
+
+    /**
+     * @param filename path of the .csv file to load
+     */
+    public AssessmentLoadTask(String filename) {
+        this.filename = filename;
+    }
+
+    @Override
+    protected PropertyAssessments call() throws Exception {
+        updateMessage("Loading " + filename);
+        AssessmentSnapshot snapshot = AssessmentSnapshot.of(filename);
+        PropertyAssessments propertyAssessments = snapshot.read();
+        if (propertyAssessments == null) {
+            propertyAssessments = PropertyAssessments.columnar();
+            AssessmentLoader.loadParallel(filename, propertyAssessments, (rows, bytes, totalBytes) -> {
+                updateProgress(bytes, totalBytes);
+                updateMessage(String.format("Loaded %,d rows", rows));
+            });
+            try {
+                snapshot.write(propertyAssessments);
+            } catch (IOException e) {
+                // Not worth failing the load for, the next start parses the file again
+            }
+        }
+        updateProgress(1, 1);
+        if (propertyAssessments.getPopulation() > 0) {
+            propertyAssessments.getStatistics();
+        }
+        updateMessage(String.format("Loaded %,d rows", propertyAssessments.getPopulation()));
+        return propertyAssessments;
+    }
+}
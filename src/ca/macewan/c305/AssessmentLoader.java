@@ -0,0 +1,331 @@
+package ca.macewan.c305;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AssessmentLoader reads a property assessment .csv file into a PropertyAssessments collection.
+ *
+ * The file is read exactly once through a file channel into a reusable byte buffer. Lines are
+ * found and tokenized in place with a CsvTokenizer, so the only objects created per row are
+ * the ones kept by the collection; a column-only collection gets the fields as codes and
+ * numbers and keeps no object per row. Records are separated by line breaks, the last one may end
+ * without one; quoted fields may contain commas but not line breaks.
+ *
+ * Large files can also be loaded in parallel: the file is cut into byte ranges that start and
+ * end on line boundaries, each range is parsed into its own batch on a ForkJoinPool worker and
+ * the batches are merged in file order at the end.
+ *
+ * A ProgressListener can follow a load that runs in the background, e.g. to drive a progress bar.
+ */
+public class AssessmentLoader {
+    private static final int BUFFER_SIZE = 1 << 20;
+    // Files smaller than this are not worth splitting
+    private static final long MIN_CHUNK_SIZE = 4L << 20;
+    private static final int CHUNKS_PER_WORKER = 4;
+
+    private AssessmentLoader() {
+    }
+
+    /**
+     * Receives the progress of a load after every block of the file. When the file is loaded in
+     * parallel it is called from several worker threads.
+     */
+    public interface ProgressListener {
+        /**
+         * @param rows rows parsed so far
+         * @param bytes bytes of the file read so far
+         * @param totalBytes size of the file
+         */
+        void progress(long rows, long bytes, long totalBytes);
+    }
+
+    /**
+     * Creates a new collection from the given file
+     *
+     * @param filename path of the .csv file
+     * @return the loaded collection
+     * @throws IOException if the file can not be read
+     * @throws NumberFormatException if a line is not a readable property assessment
+     */
+    public static PropertyAssessments load(String filename) throws IOException, NumberFormatException {
+        PropertyAssessments propertyAssessments = new PropertyAssessments();
+        load(filename, propertyAssessments);
+        return propertyAssessments;
+    }
+
+    /**
+     * Adds every property assessment in the given file to an existing collection
+     *
+     * @param filename path of the .csv file
+     * @param propertyAssessments collection the assessments are added to
+     * @throws IOException if the file can not be read
+     * @throws NumberFormatException if a line is not a readable property assessment
+     */
+    public static void load(String filename, PropertyAssessments propertyAssessments)
+            throws IOException, NumberFormatException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            parseLines(channel, 0, channel.size(), true, propertyAssessments, null);
+        }
+    }
+
+    /**
+     * Creates a new collection from the given file, parsing it on all available cores
+     *
+     * @param filename path of the .csv file
+     * @return the loaded collection
+     * @throws IOException if the file can not be read
+     * @throws NumberFormatException if a line is not a readable property assessment
+     */
+    public static PropertyAssessments loadParallel(String filename) throws IOException, NumberFormatException {
+        PropertyAssessments propertyAssessments = new PropertyAssessments();
+        loadParallel(filename, propertyAssessments);
+        return propertyAssessments;
+    }
+
+    /**
+     * Adds every property assessment in the given file to an existing collection,
+     * parsing the file on all available cores
+     *
+     * @param filename path of the .csv file
+     * @param propertyAssessments collection the assessments are added to
+     * @throws IOException if the file can not be read
+     * @throws NumberFormatException if a line is not a readable property assessment
+     */
+    public static void loadParallel(String filename, PropertyAssessments propertyAssessments)
+            throws IOException, NumberFormatException {
+        loadParallel(filename, propertyAssessments, null);
+    }
+
+    /**
+     * Adds every property assessment in the given file to an existing collection,
+     * parsing the file on all available cores and reporting the progress as it goes
+     *
+     * @param filename path of the .csv file
+     * @param propertyAssessments collection the assessments are added to
+     * @param listener receives the progress, or null
+     * @throws IOException if the file can not be read
+     * @throws NumberFormatException if a line is not a readable property assessment
+     */
+    public static void loadParallel(String filename, PropertyAssessments propertyAssessments,
+                                    ProgressListener listener) throws IOException, NumberFormatException {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long dataStart = nextLineStart(channel, 0, size); // skip header
+            Progress progress = listener == null ? null : new Progress(listener, size, dataStart);
+            int chunks = (int) Math.min((long) pool.getParallelism() * CHUNKS_PER_WORKER,
+                    (size - dataStart) / MIN_CHUNK_SIZE);
+            if (chunks < 2) {
+                parseLines(channel, dataStart, size, false, propertyAssessments, progress);
+                return;
+            }
+
+            // Cut the file into ranges that each begin at the start of a line
+            List<ChunkTask> tasks = new ArrayList<>();
+            AtomicBoolean cancelled = new AtomicBoolean();
+            long chunkSize = (size - dataStart) / chunks;
+            long start = dataStart;
+            for (int i = 1; i <= chunks && start < size; i++) {
+                long end = i == chunks ? size : nextLineStart(channel, dataStart + i * chunkSize, size);
+                if (end > start) {
+                    tasks.add(new ChunkTask(channel, start, end, propertyAssessments.emptyCopy(), progress, cancelled));
+                }
+                start = end;
+            }
+
+            for (ChunkTask task : tasks) {
+                pool.execute(task);
+            }
+            try {
+                // Merge the batches in file order
+                for (ChunkTask task : tasks) {
+                    propertyAssessments.addPropertyAssessments(task.join());
+                }
+            } catch (RuntimeException e) {
+                // The other ranges still read the channel, so it stays open until they stop
+                cancelled.set(true);
+                for (ChunkTask task : tasks) {
+                    task.quietlyJoin();
+                }
+                if (e instanceof UncheckedIOException) {
+                    throw ((UncheckedIOException) e).getCause();
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Finds the offset of the first line that starts after the given offset
+     *
+     * @param channel open channel of the .csv file
+     * @param from offset to search from
+     * @param size size of the file
+     * @return offset just past the next line break, or the size of the file if there is none
+     * @throws IOException if the file can not be read
+     */
+    private static long nextLineStart(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer window = ByteBuffer.allocate(8192);
+        long position = from;
+        while (position < size) {
+            window.clear();
+            int read = channel.read(window, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (window.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    /**
+     * Parses one byte range of the file into its own batch, unless the load was cancelled first
+     */
+    private static class ChunkTask extends RecursiveTask<PropertyAssessments> {
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel channel;
+        private final long start;
+        private final long end;
+        private final PropertyAssessments batch;
+        private final Progress progress;
+        private final AtomicBoolean cancelled;
+
+        ChunkTask(FileChannel channel, long start, long end, PropertyAssessments batch, Progress progress,
+                  AtomicBoolean cancelled) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+            this.batch = batch;
+            this.progress = progress;
+            this.cancelled = cancelled;
+        }
+
+        @Override
+        protected PropertyAssessments compute() {
+            if (cancelled.get()) {
+                return batch;
+            }
+            try {
+                parseLines(channel, start, end, false, batch, progress);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return batch;
+        }
+    }
+
+    /**
+     * Totals the progress of every range of a load and passes it on to the listener
+     */
+    private static class Progress {
+        private final ProgressListener listener;
+        private final long totalBytes;
+        private final AtomicLong rows = new AtomicLong();
+        private final AtomicLong bytes;
+
+        Progress(ProgressListener listener, long totalBytes, long headerBytes) {
+            this.listener = listener;
+            this.totalBytes = totalBytes;
+            this.bytes = new AtomicLong(headerBytes);
+        }
+
+        void add(long newRows, long newBytes) {
+            listener.progress(rows.addAndGet(newRows), bytes.addAndGet(newBytes), totalBytes);
+        }
+    }
+
+    /**
+     * Parses every line between two byte offsets of the file
+     *
+     * @param channel open channel of the .csv file
+     * @param start offset of the first line
+     * @param end offset just past the last line
+     * @param skipFirstLine true to skip the header line
+     * @param propertyAssessments collection the assessments are added to
+     * @param progress receives the rows and bytes parsed after every block, or null
+     * @throws IOException if the file can not be read
+     */
+    private static void parseLines(FileChannel channel, long start, long end, boolean skipFirstLine,
+                                   PropertyAssessments propertyAssessments, Progress progress) throws IOException {
+        CsvTokenizer tokens = new CsvTokenizer();
+        byte[] bytes = new byte[BUFFER_SIZE];
+        long position = start;
+        int filled = 0;
+        boolean skip = skipFirstLine;
+
+        while (true) {
+            // Top up the buffer after any partial line left from the last pass
+            int toRead = (int) Math.min(bytes.length - filled, end - position);
+            int read = toRead > 0 ? channel.read(ByteBuffer.wrap(bytes, filled, toRead), position) : -1;
+            if (read > 0) {
+                position += read;
+                filled += read;
+            }
+            boolean done = read <= 0 || position >= end;
+
+            int lineStart = 0;
+            int rowsBefore = propertyAssessments.getPopulation();
+            for (int i = 0; i < filled; i++) {
+                if (bytes[i] == '\n') {
+                    if (skip) {
+                        skip = false;
+                    } else {
+                        parseLine(tokens, bytes, lineStart, i, propertyAssessments);
+                    }
+                    lineStart = i + 1;
+                }
+            }
+
+            if (done) {
+                if (lineStart < filled && !skip) {
+                    parseLine(tokens, bytes, lineStart, filled, propertyAssessments); // no trailing line break
+                }
+                if (progress != null) {
+                    progress.add(propertyAssessments.getPopulation() - rowsBefore, Math.max(read, 0));
+                }
+                return;
+            }
+            if (progress != null) {
+                progress.add(propertyAssessments.getPopulation() - rowsBefore, read);
+            }
+
+            // Move the partial line to the front, growing the buffer for very long lines
+            int leftover = filled - lineStart;
+            if (leftover == bytes.length) {
+                byte[] larger = new byte[bytes.length * 2];
+                System.arraycopy(bytes, 0, larger, 0, leftover);
+                bytes = larger;
+            } else {
+                System.arraycopy(bytes, lineStart, bytes, 0, leftover);
+            }
+            filled = leftover;
+        }
+    }
+
+    private static void parseLine(CsvTokenizer tokens, byte[] bytes, int start, int end,
+                                  PropertyAssessments propertyAssessments) {
+        if (end - start < 1 || (end - start == 1 && bytes[start] == '\r')) {
+            return; // blank line
+        }
+        // add the line to the collection, as an object only if the collection keeps objects
+        tokens.reset(bytes, start, end);
+        propertyAssessments.addTokens(tokens);
+    }
+}
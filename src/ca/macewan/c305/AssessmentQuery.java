@@ -0,0 +1,155 @@
+package ca.macewan.c305;
+
+/**
+ * AssessmentQuery combines several searches over one collection before any result is built.
+ *
+ * Each search adds the bitmap of its matching rows, found from the indexes of the collection,
+ * and the bitmaps are ANDed (or ORed) together. Only the final rows are copied into a new
+ * PropertyAssessments, so a search on five fields builds one result instead of five.
+ *
+ * For example:
+ * new AssessmentQuery(assessments).ward("Ward 6").assessmentClass("Residential").run()
+ */
+public class AssessmentQuery {
+    private final PropertyAssessments source;
+    private RowBitmap rows; // null until the first search, meaning every row
+
+    /**
+     * Creates a query that matches every row of a collection
+     *
+     * @param source collection to search
+     */
+    public AssessmentQuery(PropertyAssessments source) {
+        this.source = source;
+    }
+
+    /**
+     * Keeps the rows whose account number starts with the given digits
+     */
+    public AssessmentQuery account(String accountNum) {
+        return and(source.findRowsByAccount(accountNum));
+    }
+
+    /**
+     * Keeps the rows whose address contains the given text. The text is upper-cased and
+     * compared exactly, so it matches the upper case addresses of the assessment file.
+     */
+    public AssessmentQuery address(String address) {
+        return and(source.findRowsByAddress(address));
+    }
+
+    /**
+     * Keeps the rows whose neighbourhood starts with the given name, ignoring case
+     */
+    public AssessmentQuery neighbourhood(String neighbourhood) {
+        return and(source.findRowsByNeighbourhood(neighbourhood));
+    }
+
+    /**
+     * Keeps the rows in the given ward, ignoring case
+     */
+    public AssessmentQuery ward(String ward) {
+        return and(source.findRowsByWard(ward));
+    }
+
+    /**
+     * Keeps the rows of the given assessment class, ignoring case
+     */
+    public AssessmentQuery assessmentClass(String assessmentClass) {
+        return and(source.findRowsByClass(assessmentClass));
+    }
+
+    /**
+     * Keeps the rows whose location is inside the given box, edges included
+     */
+    public AssessmentQuery boundingBox(double south, double west, double north, double east) {
+        return and(source.findRowsWithin(south, west, north, east));
+    }
+
+    /**
+     * Keeps the rows within the given distance in metres of a location
+     */
+    public AssessmentQuery radius(Location centre, double metres) {
+        return and(source.findRowsWithinRadius(centre, metres));
+    }
+
+    /**
+     * Keeps the rows whose location is inside the given polygon
+     */
+    public AssessmentQuery inside(PolygonIndex polygon) {
+        return and(source.findRowsInside(polygon));
+    }
+
+    /**
+     * Keeps only the given rows, e.g. to search within an earlier result
+     *
+     * @param selection rows of the collection
+     * @return this query
+     */
+    public AssessmentQuery within(RowBitmap selection) {
+        rows = rows == null ? selection : rows.and(selection);
+        return this;
+    }
+
+    /**
+     * Keeps the rows that also match another query over the same collection
+     *
+     * @param other query to intersect with
+     * @return this query
+     */
+    public AssessmentQuery and(AssessmentQuery other) {
+        checkSameSource(other);
+        if (other.rows != null) {
+            rows = rows == null ? other.rows : rows.and(other.rows);
+        }
+        return this;
+    }
+
+    /**
+     * Adds the rows that match another query over the same collection
+     *
+     * @param other query to unite with
+     * @return this query
+     */
+    public AssessmentQuery or(AssessmentQuery other) {
+        checkSameSource(other);
+        if (rows != null) {
+            rows = other.rows == null ? null : rows.or(other.rows);
+        }
+        return this;
+    }
+
+    /**
+     * Returns the rows of the collection that match the query
+     *
+     * @return the matching rows
+     */
+    public RowBitmap getRows() {
+        return rows == null ? RowBitmap.range(source.getPopulation()) : rows;
+    }
+
+    /**
+     * Builds the collection of the matching property assessments
+     *
+     * @return a new collection, in the order of the searched collection
+     */
+    public PropertyAssessments run() {
+        return source.selectRows(getRows().toArray());
+    }
+
+    PropertyAssessments getSource() {
+        return source;
+    }
+
+    private AssessmentQuery and(int[] matches) {
+        RowBitmap bitmap = RowBitmap.of(matches);
+        rows = rows == null ? bitmap : rows.and(bitmap);
+        return this;
+    }
+
+    private void checkSameSource(AssessmentQuery other) {
+        if (other.source != source) {
+            throw new IllegalArgumentException("Queries search different collections");
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package ca.macewan.c305;
+
+import javafx.collections.ObservableListBase;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * AssessmentRowList shows the rows of a PropertyAssessments collection in a TableView without
+ * copying them into a list of objects.
+ *
+ * A row becomes a PropertyAssessment only when the table asks for it, e.g. to draw a visible
+ * cell, so a column-only collection stays column-only. Sorting keeps the order as an int[] of
+ * rows; the table must sort through sort(), see PropertyTable.
+ */
+public class AssessmentRowList extends ObservableListBase<PropertyAssessment> {
+    private List<PropertyAssessment> rows = List.of();
+    private int[] order; // row shown at each index, null for the order of the collection
+
+    /**
+     * Shows the rows of another collection, in their own order
+     *
+     * @param propertyAssessments collection to show, must not change while it is shown
+     */
+    public void setAssessments(PropertyAssessments propertyAssessments) {
+        List<PropertyAssessment> removed = new OrderedRows(rows, order);
+        rows = propertyAssessments.getPropertyAssessments();
+        order = null;
+        beginChange();
+        nextRemove(0, removed);
+        nextAdd(0, rows.size());
+        endChange();
+    }
+
+    @Override
+    public PropertyAssessment get(int index) {
+        return rows.get(order == null ? index : order[index]);
+    }
+
+    @Override
+    public int size() {
+        return rows.size();
+    }
+
+    /**
+     * Sorts the rows. Each row is made into an object once for the sort, and only the row
+     * numbers are kept afterwards.
+     *
+     * @param comparator order of the rows, or null for the order of the collection
+     */
+    @Override
+    public void sort(Comparator<? super PropertyAssessment> comparator) {
+        int size = rows.size();
+        int[] sorted = new int[size];
+        if (comparator == null) {
+            for (int row = 0; row < size; row++) {
+                sorted[row] = row;
+            }
+        } else {
+            PropertyAssessment[] items = new PropertyAssessment[size];
+            Integer[] positions = new Integer[size];
+            for (int row = 0; row < size; row++) {
+                items[row] = rows.get(row);
+                positions[row] = row;
+            }
+            Arrays.sort(positions, (a, b) -> comparator.compare(items[a], items[b]));
+            for (int i = 0; i < size; i++) {
+                sorted[i] = positions[i];
+            }
+        }
+
+        // permutation[old index] = new index
+        int[] newIndexOfRow = new int[size];
+        for (int i = 0; i < size; i++) {
+            newIndexOfRow[sorted[i]] = i;
+        }
+        int[] permutation = new int[size];
+        for (int i = 0; i < size; i++) {
+            permutation[i] = newIndexOfRow[order == null ? i : order[i]];
+        }
+        order = comparator == null ? null : sorted;
+        if (size > 0) {
+            beginChange();
+            nextPermutation(0, size, permutation);
+            endChange();
+        }
+    }
+
+    /**
+     * Rows of a collection in a given order, for reporting the rows a change removed
+     */
+    private static final class OrderedRows extends AbstractList<PropertyAssessment> {
+        private final List<PropertyAssessment> rows;
+        private final int[] order;
+
+        OrderedRows(List<PropertyAssessment> rows, int[] order) {
+            this.rows = rows;
+            this.order = order;
+        }
+
+        @Override
+        public PropertyAssessment get(int index) {
+            return rows.get(order == null ? index : order[index]);
+        }
+
+        @Override
+        public int size() {
+            return rows.size();
+        }
+    }
+}
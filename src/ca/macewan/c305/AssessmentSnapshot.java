@@ -0,0 +1,299 @@
+package ca.macewan.c305;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * AssessmentSnapshot saves a loaded collection next to its .csv file in a binary form that can
+ * be read back many times faster than the .csv file can be parsed.
+ *
+ * The snapshot is stored column by column, the same way as AssessmentColumns. Text columns are
+ * written as codes into small dictionaries that hold only the Strings used by the collection,
+ * and are mapped back onto the dictionaries of a new store when read. Reading memory maps the file and
+ * copies each column out with one bulk get.
+ *
+ * A snapshot remembers the size, modification time and CRC-32C checksum of the .csv file it was
+ * made from, and is ignored once any of them changes. It also keeps a CRC-32C checksum of its
+ * own body, checked before anything is decoded, and every length in it is checked against the
+ * bytes left, so a damaged snapshot is ignored as well. Layout, all numbers little endian:
+ * <pre>
+ *   int magic, int version, long csv size, long csv modified time, long csv checksum,
+ *   long body checksum, then the body:
+ *   int rows
+ *   7 dictionaries, in the order of AssessmentColumns.textDictionaries():
+ *       int count, then count times: int length, length bytes of UTF-8
+ *   int[rows] account numbers, int[rows] values, int[rows] neighbourhood ids,
+ *   7 times int[rows] codes, double[rows] latitudes, double[rows] longitudes
+ * </pre>
+ */
+public class AssessmentSnapshot {
+    private static final int MAGIC = 0x50415331; // "PAS1"
+    private static final int VERSION = 2;
+    private static final String SUFFIX = ".snapshot";
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 8 + 8 + 8;
+    // Largest piece of the .csv file mapped at once for the checksum
+    private static final long CHECKSUM_BLOCK = 64L << 20;
+
+    private final Path snapshotPath;
+    private final long csvSize;
+    private final long csvModified;
+    private final long csvChecksum;
+
+    private AssessmentSnapshot(Path csvPath, long csvSize, long csvModified, long csvChecksum) {
+        this.snapshotPath = Paths.get(csvPath + SUFFIX);
+        this.csvSize = csvSize;
+        this.csvModified = csvModified;
+        this.csvChecksum = csvChecksum;
+    }
+
+    /**
+     * Looks at the current state of a .csv file. The snapshot that is read or written is the
+     * one for this state, so a file that changes during a load is loaded again next time.
+     *
+     * @param filename path of the .csv file
+     * @return the snapshot of the file
+     * @throws IOException if the file can not be read
+     */
+    public static AssessmentSnapshot of(String filename) throws IOException {
+        Path csvPath = Paths.get(filename);
+        long modified = Files.getLastModifiedTime(csvPath).toMillis();
+        try (FileChannel channel = FileChannel.open(csvPath, StandardOpenOption.READ)) {
+            long size = channel.size();
+            return new AssessmentSnapshot(csvPath, size, modified, checksum(channel, size));
+        }
+    }
+
+    /**
+     * @return the path of the snapshot file, next to the .csv file
+     */
+    public Path getPath() {
+        return snapshotPath;
+    }
+
+    /**
+     * Reads the collection back from the snapshot
+     *
+     * @return the collection, or null if there is no snapshot or it does not match the .csv file
+     */
+    public PropertyAssessments read() {
+        try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (!readHeader(buffer)) {
+                return null;
+            }
+            return PropertyAssessments.ofColumns(readColumns(buffer));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            // A damaged snapshot only costs a parse of the .csv file
+            return null;
+        }
+    }
+
+    /**
+     * Saves a collection loaded from the .csv file. The snapshot is written to a temporary file
+     * first, so a snapshot is never seen half written.
+     *
+     * @param propertyAssessments collection to save
+     * @throws IOException if the snapshot can not be written
+     */
+    public void write(PropertyAssessments propertyAssessments) throws IOException {
+        ByteBuffer buffer = encode(propertyAssessments.getColumns());
+        Path directory = snapshotPath.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(directory, snapshotPath.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            try {
+                Files.move(temporary, snapshotPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, snapshotPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private ByteBuffer encode(AssessmentColumns columns) {
+        int rows = columns.size();
+        StringDictionary[] dictionaries = columns.textDictionaries();
+        int[][] textColumns = columns.textColumns();
+        int[][] localColumns = new int[dictionaries.length][];
+        List<List<byte[]>> localStrings = new ArrayList<>();
+        long bytes = HEADER_BYTES + 4; // and the row count
+        for (int d = 0; d < dictionaries.length; d++) {
+            // Give the Strings used by the collection codes 0, 1, 2... in order of first use
+            int[] localCodes = new int[dictionaries[d].size()];
+            Arrays.fill(localCodes, -1);
+            List<byte[]> strings = new ArrayList<>();
+            int[] codes = textColumns[d];
+            int[] local = new int[rows];
+            for (int row = 0; row < rows; row++) {
+                int code = codes[row];
+                if (localCodes[code] < 0) {
+                    localCodes[code] = strings.size();
+                    byte[] string = dictionaries[d].getString(code).getBytes(StandardCharsets.UTF_8);
+                    strings.add(string);
+                    bytes += 4 + string.length;
+                }
+                local[row] = localCodes[code];
+            }
+            localColumns[d] = local;
+            localStrings.add(strings);
+            bytes += 4;
+        }
+        bytes += (long) rows * (4 * (3 + dictionaries.length) + 8 * 2);
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many rows for a snapshot: " + rows);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) bytes).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(csvSize).putLong(csvModified).putLong(csvChecksum);
+        int bodyChecksumPosition = buffer.position();
+        buffer.putLong(0).putInt(rows);
+        for (List<byte[]> strings : localStrings) {
+            buffer.putInt(strings.size());
+            for (byte[] string : strings) {
+                buffer.putInt(string.length).put(string);
+            }
+        }
+        putInts(buffer, columns.accountNumColumn(), rows);
+        putInts(buffer, columns.valueColumn(), rows);
+        putInts(buffer, columns.neighbourhoodIdColumn(), rows);
+        for (int[] local : localColumns) {
+            putInts(buffer, local, rows);
+        }
+        putDoubles(buffer, columns.latitudeColumn(), rows);
+        putDoubles(buffer, columns.longitudeColumn(), rows);
+        buffer.flip();
+        buffer.putLong(bodyChecksumPosition, checksum(buffer.duplicate().position(HEADER_BYTES)));
+        return buffer;
+    }
+
+    /**
+     * Reads the header and checks that it was written for the current state of the .csv file
+     * and that the body is intact
+     */
+    private boolean readHeader(ByteBuffer buffer) {
+        if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            return false;
+        }
+        if (buffer.getLong() != csvSize || buffer.getLong() != csvModified || buffer.getLong() != csvChecksum) {
+            return false;
+        }
+        return buffer.getLong() == checksum(buffer.duplicate());
+    }
+
+    private static AssessmentColumns readColumns(ByteBuffer buffer) throws IOException {
+        int rows = readLength(buffer, 0);
+        AssessmentColumns columns = new AssessmentColumns();
+        StringDictionary[] dictionaries = columns.textDictionaries();
+        int bytesPerRow = 4 * (3 + dictionaries.length) + 8 * 2;
+        int[][] storeCodes = new int[dictionaries.length][];
+        for (int d = 0; d < dictionaries.length; d++) {
+            int count = readLength(buffer, 4);
+            int[] codes = new int[count];
+            for (int i = 0; i < count; i++) {
+                byte[] string = new byte[readLength(buffer, 1)];
+                buffer.get(string);
+                codes[i] = dictionaries[d].getCode(new String(string, StandardCharsets.UTF_8));
+            }
+            storeCodes[d] = codes;
+        }
+        if (buffer.remaining() != (long) rows * bytesPerRow) {
+            throw new IOException("Snapshot columns do not match " + rows + " rows");
+        }
+        int[] accountNums = getInts(buffer, rows);
+        int[] values = getInts(buffer, rows);
+        int[] neighbourhoodIds = getInts(buffer, rows);
+        int[][] textColumns = new int[dictionaries.length][];
+        for (int d = 0; d < dictionaries.length; d++) {
+            int[] codes = getInts(buffer, rows);
+            int[] store = storeCodes[d];
+            for (int row = 0; row < rows; row++) {
+                if (codes[row] < 0 || codes[row] >= store.length) {
+                    throw new IOException("Snapshot code " + codes[row] + " is not in its dictionary");
+                }
+                codes[row] = store[codes[row]];
+            }
+            textColumns[d] = codes;
+        }
+        double[] latitudes = getDoubles(buffer, rows);
+        double[] longitudes = getDoubles(buffer, rows);
+        columns.setColumns(rows, accountNums, values, neighbourhoodIds, textColumns, latitudes, longitudes);
+        return columns;
+    }
+
+    /**
+     * Reads a count of items and checks that the items can still fit in the snapshot
+     *
+     * @param bytesPerItem smallest size of one item
+     */
+    private static int readLength(ByteBuffer buffer, int bytesPerItem) throws IOException {
+        if (buffer.remaining() < 4) {
+            throw new IOException("Snapshot ends early");
+        }
+        int length = buffer.getInt();
+        if (length < 0 || (long) length * bytesPerItem > buffer.remaining()) {
+            throw new IOException("Snapshot length " + length + " does not fit in " + buffer.remaining() + " bytes");
+        }
+        return length;
+    }
+
+    private static void putInts(ByteBuffer buffer, int[] column, int rows) {
+        buffer.asIntBuffer().put(column, 0, rows);
+        buffer.position(buffer.position() + rows * 4);
+    }
+
+    private static void putDoubles(ByteBuffer buffer, double[] column, int rows) {
+        buffer.asDoubleBuffer().put(column, 0, rows);
+        buffer.position(buffer.position() + rows * 8);
+    }
+
+    private static int[] getInts(ByteBuffer buffer, int rows) {
+        int[] column = new int[rows];
+        buffer.asIntBuffer().get(column);
+        buffer.position(buffer.position() + rows * 4);
+        return column;
+    }
+
+    private static double[] getDoubles(ByteBuffer buffer, int rows) {
+        double[] column = new double[rows];
+        buffer.asDoubleBuffer().get(column);
+        buffer.position(buffer.position() + rows * 8);
+        return column;
+    }
+
+    private static long checksum(ByteBuffer bytes) {
+        CRC32C crc = new CRC32C();
+        crc.update(bytes);
+        return crc.getValue();
+    }
+
+    private static long checksum(FileChannel channel, long size) throws IOException {
+        CRC32C crc = new CRC32C();
+        for (long position = 0; position < size; position += CHECKSUM_BLOCK) {
+            crc.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(CHECKSUM_BLOCK, size - position)));
+        }
+        return crc.getValue();
+    }
+}
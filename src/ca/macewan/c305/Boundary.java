@@ -0,0 +1,154 @@
+package ca.macewan.c305;
+
+import java.util.Arrays;
+
+/**
+ * Boundary is the outline of a ward or neighbourhood as a polygon of latitude/longitude points.
+ *
+ * The points are packed in one double[] as latitude, longitude, latitude, longitude... instead
+ * of one Location object per point. The bounding box is worked out once when the boundary is
+ * created, and so are simplified copies of the points for drawing the boundary at lower zoom
+ * levels of the map, where most of the points would fall on the same pixels.
+ */
+public final class Boundary {
+    // Zoom levels of the map that have their own simplified points, closer zooms get every point
+    private static final int[] DETAIL_ZOOMS = {10, 12, 14, 16};
+    // Ground size of a pixel at the equator at zoom level 0, halved at each level
+    private static final double EQUATOR_METRES_PER_PIXEL = 156543.03;
+
+    private final String name;
+    private final double[] coordinates;
+    private final double minLatitude;
+    private final double maxLatitude;
+    private final double minLongitude;
+    private final double maxLongitude;
+    // Simplified coordinates for each of DETAIL_ZOOMS
+    private final double[][] detailLevels;
+    // Built when first needed, possibly by a background search, so published through volatile
+    private volatile PolygonIndex polygon;
+
+    /**
+     * @param name name of the ward or neighbourhood
+     * @param coordinates packed latitude, longitude pairs, at least one point
+     */
+    public Boundary(String name, double[] coordinates) {
+        if (coordinates.length < 2 || coordinates.length % 2 != 0) {
+            throw new IllegalArgumentException("A boundary needs latitude, longitude pairs: " + name);
+        }
+        this.name = name;
+        this.coordinates = coordinates.clone();
+        double minLat = Double.POSITIVE_INFINITY, maxLat = Double.NEGATIVE_INFINITY;
+        double minLon = Double.POSITIVE_INFINITY, maxLon = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < coordinates.length; i += 2) {
+            minLat = Math.min(minLat, coordinates[i]);
+            maxLat = Math.max(maxLat, coordinates[i]);
+            minLon = Math.min(minLon, coordinates[i + 1]);
+            maxLon = Math.max(maxLon, coordinates[i + 1]);
+        }
+        this.minLatitude = minLat;
+        this.maxLatitude = maxLat;
+        this.minLongitude = minLon;
+        this.maxLongitude = maxLon;
+
+        // Within half a pixel of the full outline at each level
+        double metresPerPixel = EQUATOR_METRES_PER_PIXEL * Math.cos(Math.toRadians((minLat + maxLat) / 2));
+        this.detailLevels = new double[DETAIL_ZOOMS.length][];
+        for (int level = 0; level < DETAIL_ZOOMS.length; level++) {
+            double tolerance = metresPerPixel / Math.pow(2, DETAIL_ZOOMS[level]) / 2;
+            detailLevels[level] = PolylineSimplifier.simplify(this.coordinates, tolerance);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getPointCount() {
+        return coordinates.length / 2;
+    }
+
+    public double getLatitude(int point) {
+        return coordinates[2 * point];
+    }
+
+    public double getLongitude(int point) {
+        return coordinates[2 * point + 1];
+    }
+
+    /**
+     * @return a copy of the packed latitude, longitude pairs
+     */
+    public double[] getCoordinates() {
+        return coordinates.clone();
+    }
+
+    /**
+     * Returns the points needed to draw the boundary at a zoom level of the map
+     *
+     * @param zoom zoom level of the map, as in setCentreAndZoom
+     * @return a copy of the packed latitude, longitude pairs, simplified to within half a pixel
+     */
+    public double[] getCoordinates(double zoom) {
+        for (int level = 0; level < DETAIL_ZOOMS.length; level++) {
+            if (zoom <= DETAIL_ZOOMS[level]) {
+                return detailLevels[level].clone();
+            }
+        }
+        return coordinates.clone();
+    }
+
+    public double getMinLatitude() {
+        return minLatitude;
+    }
+
+    public double getMaxLatitude() {
+        return maxLatitude;
+    }
+
+    public double getMinLongitude() {
+        return minLongitude;
+    }
+
+    public double getMaxLongitude() {
+        return maxLongitude;
+    }
+
+    /**
+     * @return the centre of the bounding box of the boundary
+     */
+    public Location getCentre() {
+        return new Location((maxLatitude + minLatitude) / 2, (maxLongitude + minLongitude) / 2);
+    }
+
+    /**
+     * Returns the index for point-in-polygon tests, built when first asked for
+     *
+     * @return the polygon of the boundary
+     */
+    public PolygonIndex getPolygon() {
+        PolygonIndex index = polygon;
+        if (index == null) {
+            index = new PolygonIndex(coordinates);
+            polygon = index;
+        }
+        return index;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Boundary boundary = (Boundary) o;
+        return name.equals(boundary.name) && Arrays.equals(coordinates, boundary.coordinates);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * name.hashCode() + Arrays.hashCode(coordinates);
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + getPointCount() + " points)";
+    }
+}
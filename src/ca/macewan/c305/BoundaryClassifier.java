@@ -0,0 +1,134 @@
+package ca.macewan.c305;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * BoundaryClassifier finds the ward or neighbourhood each property is in from its location,
+ * using the polygons of the boundaries instead of the names in the assessment file.
+ *
+ * Comparing the two shows the rows whose name column disagrees with their coordinates. Such
+ * rows can be checked, or repaired with the name of the boundary they are in.
+ */
+public class BoundaryClassifier {
+    public static final int NONE = -1;
+
+    private final String[] names;
+    private final PolygonIndex[] polygons;
+    // Whether the names are compared with the ward column or the neighbourhood column
+    private final boolean wards;
+
+    private BoundaryClassifier(Map<String, Boundary> boundaries, boolean wards) {
+        this.names = boundaries.keySet().toArray(new String[0]);
+        Arrays.sort(this.names);
+        this.polygons = new PolygonIndex[names.length];
+        for (int i = 0; i < names.length; i++) {
+            polygons[i] = boundaries.get(names[i]).getPolygon();
+        }
+        this.wards = wards;
+    }
+
+    /**
+     * @param repository boundaries of the city
+     * @return a classifier by ward
+     */
+    public static BoundaryClassifier forWards(BoundaryRepository repository) {
+        return new BoundaryClassifier(repository.getWards(), true);
+    }
+
+    /**
+     * @param repository boundaries of the city
+     * @return a classifier by neighbourhood
+     */
+    public static BoundaryClassifier forNeighbourhoods(BoundaryRepository repository) {
+        return new BoundaryClassifier(repository.getNeighbourhoods(), false);
+    }
+
+    /**
+     * @param boundaries boundaries by upper case name
+     * @param wards true to compare with the ward column, false for the neighbourhood column
+     * @return a classifier of the given boundaries
+     */
+    static BoundaryClassifier of(Map<String, Boundary> boundaries, boolean wards) {
+        return new BoundaryClassifier(boundaries, wards);
+    }
+
+    /**
+     * @return the number of boundaries
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * @param boundary boundary number, from 0 in order of name
+     * @return the upper case name of the boundary
+     */
+    public String getName(int boundary) {
+        return names[boundary];
+    }
+
+    /**
+     * Finds the boundary a location is in
+     *
+     * @param location the location
+     * @return the name of the boundary, or null if it is in none
+     */
+    public String locate(Location location) {
+        for (int i = 0; i < polygons.length; i++) {
+            if (polygons[i].contains(location)) {
+                return names[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds the boundary of every row. Each boundary takes the rows inside it in bulk, so a row
+     * is only tested against the boundaries whose bounding box holds it. Where boundaries
+     * overlap, the first name wins.
+     *
+     * @param columns rows to classify
+     * @return the boundary number of each row, NONE for rows outside every boundary
+     */
+    public int[] classify(AssessmentColumns columns) {
+        int[] boundaries = new int[columns.size()];
+        Arrays.fill(boundaries, NONE);
+        for (int i = polygons.length - 1; i >= 0; i--) {
+            for (int row : polygons[i].findRows(columns)) {
+                boundaries[row] = i;
+            }
+        }
+        return boundaries;
+    }
+
+    /**
+     * Finds the rows whose ward or neighbourhood column names another boundary than the one
+     * their location is in. Rows outside every boundary, e.g. with no location, are not
+     * counted, nor are rows whose name has no boundary.
+     *
+     * @param columns rows to check
+     * @return the disagreeing rows in increasing order
+     */
+    public int[] findMismatches(AssessmentColumns columns) {
+        int[] boundaries = classify(columns);
+        StringDictionary dictionary = wards ? AssessmentColumns.WARDS : AssessmentColumns.NEIGHBOURHOODS;
+        int[] codes = wards ? columns.wardColumn() : columns.neighbourhoodColumn();
+
+        // The boundary of each name code, found once instead of per row
+        Map<String, Integer> byName = new HashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            byName.put(names[i], i);
+        }
+        int[] codeBoundaries = new int[dictionary.size()];
+        for (int code = 0; code < codeBoundaries.length; code++) {
+            codeBoundaries[code] = byName.getOrDefault(dictionary.getString(code).toUpperCase(), NONE);
+        }
+        return IntStream.range(0, columns.size()).parallel()
+                .filter(row -> boundaries[row] != NONE && codeBoundaries[codes[row]] != NONE
+                        && codeBoundaries[codes[row]] != boundaries[row])
+                .toArray();
+    }
+}
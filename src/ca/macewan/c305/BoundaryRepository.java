@@ -0,0 +1,153 @@
+package ca.macewan.c305;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * BoundaryRepository holds the ward and neighbourhood boundaries of the city.
+ *
+ * The boundary files are read once per run and the boundaries are shared by every tab. Each
+ * file is memory mapped and scanned line by line with a CsvTokenizer, and the points of a
+ * polygon are collected straight into a packed double[], see Boundary.
+ *
+ * A boundary file has one point per line: name, latitude, longitude and further columns that
+ * are not used. The points of a polygon are on consecutive lines with the same name.
+ */
+public class BoundaryRepository {
+    public static final String WARD_FILE = "Municipal_20Ward_20Boundaries_20_Tableau_.csv";
+    public static final String NEIGHBOURHOOD_FILE = "Neighbourhood_20Boundaries_20_Tableau_.csv";
+
+    private static BoundaryRepository instance;
+
+    private final Map<String, Boundary> wards;
+    private final Map<String, Boundary> neighbourhoods;
+
+    private BoundaryRepository(Map<String, Boundary> wards, Map<String, Boundary> neighbourhoods) {
+        this.wards = Collections.unmodifiableMap(wards);
+        this.neighbourhoods = Collections.unmodifiableMap(neighbourhoods);
+    }
+
+    /**
+     * Returns the boundaries of the city, reading the boundary files on the first call
+     *
+     * @return the shared repository
+     * @throws IOException if a boundary file can not be read
+     * @throws NumberFormatException if a line of a boundary file is not a point
+     */
+    public static synchronized BoundaryRepository getInstance() throws IOException, NumberFormatException {
+        if (instance == null) {
+            instance = new BoundaryRepository(load(Paths.get(WARD_FILE)), load(Paths.get(NEIGHBOURHOOD_FILE)));
+        }
+        return instance;
+    }
+
+    /**
+     * @param ward name of the ward in upper case, e.g. "WARD 1"
+     * @return the boundary of the ward, or null if there is none
+     */
+    public Boundary getWard(String ward) {
+        return wards.get(ward);
+    }
+
+    /**
+     * @param neighbourhood name of the neighbourhood in upper case
+     * @return the boundary of the neighbourhood, or null if there is none
+     */
+    public Boundary getNeighbourhood(String neighbourhood) {
+        return neighbourhoods.get(neighbourhood);
+    }
+
+    /**
+     * @return every ward boundary by name, read only
+     */
+    public Map<String, Boundary> getWards() {
+        return wards;
+    }
+
+    /**
+     * @return every neighbourhood boundary by name, read only
+     */
+    public Map<String, Boundary> getNeighbourhoods() {
+        return neighbourhoods;
+    }
+
+    /**
+     * Reads the boundaries of a boundary file. When a name comes back after other names, its
+     * later polygon replaces the earlier one.
+     *
+     * @param path boundary file
+     * @return the boundaries by name
+     * @throws IOException if the file can not be read
+     * @throws NumberFormatException if a line is not a point
+     */
+    public static Map<String, Boundary> load(Path path) throws IOException, NumberFormatException {
+        Map<String, Boundary> boundaries = new HashMap<>();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            CsvTokenizer tokens = new CsvTokenizer();
+            // Names of one file repeat on thousands of lines, so they are looked up without a new String
+            StringDictionary names = new StringDictionary();
+            byte[] line = new byte[256];
+            String name = null;
+            double[] points = new double[256];
+            int pointValues = 0;
+
+            int position = skipByteOrderMark(buffer);
+            int limit = buffer.limit();
+            while (position < limit) {
+                int end = position;
+                while (end < limit && buffer.get(end) != '\n') {
+                    end++;
+                }
+                int length = end - position;
+                if (length > line.length) {
+                    line = new byte[Math.max(length, line.length * 2)];
+                }
+                buffer.get(position, line, 0, length);
+                position = end + 1;
+
+                tokens.reset(line, 0, length);
+                if (tokens.getFieldCount() == 1 && tokens.isEmpty(0)) {
+                    continue; // blank line
+                }
+                if (tokens.getFieldCount() < 3) {
+                    throw new NumberFormatException("Not a boundary point in " + path + ": "
+                            + new String(line, 0, length));
+                }
+                String lineName = tokens.getString(0, names);
+                if (!lineName.equals(name)) {
+                    if (name != null) {
+                        boundaries.put(name, new Boundary(name, Arrays.copyOf(points, pointValues)));
+                    }
+                    name = lineName;
+                    pointValues = 0;
+                }
+                if (pointValues + 2 > points.length) {
+                    points = Arrays.copyOf(points, points.length * 2);
+                }
+                points[pointValues++] = tokens.getDouble(1);
+                points[pointValues++] = tokens.getDouble(2);
+            }
+            if (name != null) {
+                boundaries.put(name, new Boundary(name, Arrays.copyOf(points, pointValues)));
+            }
+        }
+        return boundaries;
+    }
+
+    private static int skipByteOrderMark(MappedByteBuffer buffer) {
+        if (buffer.limit() >= 3 && buffer.get(0) == (byte) 0xEF && buffer.get(1) == (byte) 0xBB
+                && buffer.get(2) == (byte) 0xBF) {
+            return 3;
+        }
+        return 0;
+    }
+}
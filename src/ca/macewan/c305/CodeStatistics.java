@@ -0,0 +1,74 @@
+package ca.macewan.c305;
+
+import java.util.Arrays;
+
+/**
+ * CodeStatistics keeps a StatisticsAccumulator of the assessed values for every code of a
+ * dictionary coded column, e.g. one per ward.
+ *
+ * The accumulators are updated as rows are added, so the statistics of a group are available
+ * without looking at its rows.
+ */
+public class CodeStatistics {
+    private StatisticsAccumulator[] accumulators = new StatisticsAccumulator[16];
+
+    /**
+     * Adds the value of a row to the statistics of its code
+     *
+     * @param code dictionary code of the row
+     * @param value assessed value of the row
+     */
+    public void add(int code, int value) {
+        accumulatorOf(code).add(value);
+    }
+
+    /**
+     * Adds the statistics of every code of another CodeStatistics
+     *
+     * @param other statistics to add
+     */
+    public void combine(CodeStatistics other) {
+        for (int code = 0; code < other.accumulators.length; code++) {
+            if (other.accumulators[code] != null) {
+                accumulatorOf(code).combine(other.accumulators[code]);
+            }
+        }
+    }
+
+    /**
+     * Returns a copy of the statistics of a code
+     *
+     * @param code dictionary code
+     * @return the statistics, empty if no row has the code
+     */
+    public StatisticsAccumulator get(int code) {
+        if (code < accumulators.length && accumulators[code] != null) {
+            return new StatisticsAccumulator(accumulators[code]);
+        }
+        return new StatisticsAccumulator();
+    }
+
+    /**
+     * Returns the number of rows with a code
+     *
+     * @param code dictionary code
+     * @return the number of rows
+     */
+    public long getCount(int code) {
+        return code < accumulators.length && accumulators[code] != null ? accumulators[code].getCount() : 0;
+    }
+
+    public void clear() {
+        Arrays.fill(accumulators, null);
+    }
+
+    private StatisticsAccumulator accumulatorOf(int code) {
+        if (code >= accumulators.length) {
+            accumulators = Arrays.copyOf(accumulators, Math.max(code + 1, accumulators.length * 2));
+        }
+        if (accumulators[code] == null) {
+            accumulators[code] = new StatisticsAccumulator();
+        }
+        return accumulators[code];
+    }
+}
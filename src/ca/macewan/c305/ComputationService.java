@@ -0,0 +1,94 @@
+package ca.macewan.c305;
+
+import javafx.application.Platform;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * ComputationService runs searches, statistics and chart preparation on a background thread
+ * and hands the results back to the JavaFX application thread.
+ *
+ * Only the newest piece of work matters: submitting new work cancels work that has not
+ * started yet, and the result of any older work that still finishes is dropped instead of
+ * being shown over the newer one.
+ */
+public class ComputationService {
+    private final ExecutorService executor;
+    // Only read and written on the JavaFX application thread
+    private long generation;
+    private Future<?> pending;
+
+    /**
+     * Creates a service with its own worker thread
+     *
+     * @param name name of the worker thread
+     */
+    public ComputationService(String name) {
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Runs work in the background and passes its result to onResult on the JavaFX application
+     * thread, unless newer work was submitted in the meantime. Must be called on the JavaFX
+     * application thread.
+     *
+     * @param work computation to run; must not touch the scene graph
+     * @param onResult receives the result on the JavaFX application thread
+     * @param <T> type of the result
+     */
+    public <T> void submit(Callable<T> work, Consumer<T> onResult) {
+        submit(work, onResult, error -> {
+            error.printStackTrace();
+            PopUp.Error("Could not complete the request: " + error.getMessage());
+        });
+    }
+
+    /**
+     * Runs work in the background, see submit(Callable, Consumer)
+     *
+     * @param work computation to run; must not touch the scene graph
+     * @param onResult receives the result on the JavaFX application thread
+     * @param onError receives the exception thrown by the work on the JavaFX application thread
+     * @param <T> type of the result
+     */
+    public <T> void submit(Callable<T> work, Consumer<T> onResult, Consumer<Exception> onError) {
+        long thisGeneration = ++generation;
+        if (pending != null) {
+            pending.cancel(false);
+        }
+        pending = executor.submit(() -> {
+            try {
+                T result = work.call();
+                Platform.runLater(() -> {
+                    if (thisGeneration == generation) {
+                        onResult.accept(result);
+                    }
+                });
+            } catch (Exception e) {
+                Platform.runLater(() -> {
+                    if (thisGeneration == generation) {
+                        onError.accept(e);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Drops the result of any submitted work. Must be called on the JavaFX application thread.
+     */
+    public void cancel() {
+        generation++;
+        if (pending != null) {
+            pending.cancel(false);
+        }
+    }
+}
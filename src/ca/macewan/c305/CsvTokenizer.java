@@ -0,0 +1,251 @@
+package ca.macewan.c305;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * CsvTokenizer splits one line of a .csv file into fields without copying it.
+ *
+ * The line is scanned once and only the start and end offset of every field is recorded.
+ * Numbers are parsed straight from those offsets, so a String is only created for the fields
+ * that are actually kept. Quoted fields may contain commas and doubled ("") quotes.
+ */
+public class CsvTokenizer {
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    // Largest number of significant digits that always fits exactly in a double
+    private static final int MAX_EXACT_DIGITS = 15;
+
+    private byte[] buffer;
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private boolean[] quoted = new boolean[16];
+    private int fieldCount;
+
+    /**
+     * Tokenizes a line held in a String
+     *
+     * @param line line without its line terminator
+     * @return this tokenizer
+     */
+    public CsvTokenizer reset(String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        return reset(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Tokenizes the bytes from start (inclusive) to end (exclusive) of the buffer.
+     * A trailing carriage return is ignored.
+     *
+     * @param buffer UTF-8 encoded bytes
+     * @param start offset of the first byte of the line
+     * @param end offset just past the last byte of the line
+     * @return this tokenizer
+     */
+    public CsvTokenizer reset(byte[] buffer, int start, int end) {
+        this.buffer = buffer;
+        this.fieldCount = 0;
+        if (end > start && buffer[end - 1] == '\r') {
+            end--;
+        }
+
+        int i = start;
+        while (true) {
+            if (i < end && buffer[i] == '"') {
+                // Quoted field, runs until a quote that is not doubled
+                int fieldStart = ++i;
+                while (i < end && !(buffer[i] == '"' && (i + 1 >= end || buffer[i + 1] != '"'))) {
+                    i += buffer[i] == '"' ? 2 : 1;
+                }
+                addField(fieldStart, Math.min(i, end), true);
+                while (i < end && buffer[i] != ',') {
+                    i++; // skip the closing quote and anything after it
+                }
+            } else {
+                int fieldStart = i;
+                while (i < end && buffer[i] != ',') {
+                    i++;
+                }
+                addField(fieldStart, i, false);
+            }
+            if (i >= end) {
+                return this;
+            }
+            i++; // skip the comma
+        }
+    }
+
+    private void addField(int start, int end, boolean isQuoted) {
+        if (fieldCount == starts.length) {
+            int size = starts.length * 2;
+            starts = Arrays.copyOf(starts, size);
+            ends = Arrays.copyOf(ends, size);
+            quoted = Arrays.copyOf(quoted, size);
+        }
+        starts[fieldCount] = start;
+        ends[fieldCount] = end;
+        quoted[fieldCount] = isQuoted;
+        fieldCount++;
+    }
+
+    public int getFieldCount() {
+        return this.fieldCount;
+    }
+
+    public boolean isEmpty(int field) {
+        checkField(field);
+        return starts[field] == ends[field];
+    }
+
+    /**
+     * Returns the text of a field, with the surrounding quotes removed and doubled quotes collapsed
+     *
+     * @param field index of the field
+     * @return the field as a String
+     */
+    public String getString(int field) {
+        checkField(field);
+        int start = starts[field];
+        int length = ends[field] - start;
+        String text = new String(buffer, start, length, StandardCharsets.UTF_8);
+        if (quoted[field] && text.indexOf('"') >= 0) {
+            text = text.replace("\"\"", "\"");
+        }
+        return text;
+    }
+
+    /**
+     * Returns the shared instance of a field's text from a dictionary. Unquoted fields that are
+     * already in the dictionary are looked up from the bytes, without creating a String.
+     *
+     * @param field index of the field
+     * @param dictionary dictionary holding the shared Strings
+     * @return the field as a shared String
+     */
+    public String getString(int field, StringDictionary dictionary) {
+        checkField(field);
+        if (quoted[field]) {
+            return dictionary.intern(getString(field));
+        }
+        return dictionary.intern(buffer, starts[field], ends[field]);
+    }
+
+    /**
+     * Returns the dictionary code of a field's text, adding the text if it is new
+     *
+     * @param field index of the field
+     * @param dictionary dictionary of the field's column
+     * @return the code of the field
+     */
+    public int getCode(int field, StringDictionary dictionary) {
+        return dictionary.getCode(getString(field, dictionary));
+    }
+
+    /**
+     * Parses a field as an int without creating a String
+     *
+     * @param field index of the field
+     * @return the value of the field
+     * @throws NumberFormatException if the field is not an int
+     */
+    public int getInt(int field) throws NumberFormatException {
+        checkField(field);
+        int i = starts[field];
+        int end = ends[field];
+        boolean negative = false;
+        if (i < end && (buffer[i] == '-' || buffer[i] == '+')) {
+            negative = buffer[i] == '-';
+            i++;
+        }
+        if (i == end) {
+            throw new NumberFormatException("For input string: \"" + getString(field) + "\"");
+        }
+
+        long result = 0;
+        for (; i < end; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("For input string: \"" + getString(field) + "\"");
+            }
+            result = result * 10 + digit;
+            if (result > (long) Integer.MAX_VALUE + 1) {
+                throw new NumberFormatException("For input string: \"" + getString(field) + "\"");
+            }
+        }
+        if (negative) {
+            result = -result;
+        }
+        if (result > Integer.MAX_VALUE) {
+            throw new NumberFormatException("For input string: \"" + getString(field) + "\"");
+        }
+        return (int) result;
+    }
+
+    /**
+     * Parses a field as a double.
+     * Plain decimals of up to 15 significant digits are parsed in place; anything else
+     * (exponents, longer numbers) falls back to Double.parseDouble.
+     *
+     * @param field index of the field
+     * @return the value of the field
+     * @throws NumberFormatException if the field is not a number
+     */
+    public double getDouble(int field) throws NumberFormatException {
+        checkField(field);
+        int i = starts[field];
+        int end = ends[field];
+        boolean negative = false;
+        if (i < end && (buffer[i] == '-' || buffer[i] == '+')) {
+            negative = buffer[i] == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean seenPoint = false;
+        boolean seenDigit = false;
+        for (; i < end; i++) {
+            byte b = buffer[i];
+            if (b == '.' && !seenPoint) {
+                seenPoint = true;
+                continue;
+            }
+            int digit = b - '0';
+            if (digit < 0 || digit > 9) {
+                return Double.parseDouble(getString(field));
+            }
+            seenDigit = true;
+            if (mantissa == 0 && digit == 0) {
+                // leading zeros are not significant
+                if (seenPoint) {
+                    fractionDigits++;
+                }
+                continue;
+            }
+            mantissa = mantissa * 10 + digit;
+            digits++;
+            if (seenPoint) {
+                fractionDigits++;
+            }
+            if (digits > MAX_EXACT_DIGITS) {
+                return Double.parseDouble(getString(field));
+            }
+        }
+        if (!seenDigit || fractionDigits >= POWERS_OF_TEN.length) {
+            return Double.parseDouble(getString(field));
+        }
+
+        // Both numbers are exact, so the division is correctly rounded
+        double result = mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -result : result;
+    }
+
+    private void checkField(int field) {
+        if (field < 0 || field >= fieldCount) {
+            throw new IndexOutOfBoundsException("Field " + field + " of " + fieldCount);
+        }
+    }
+}
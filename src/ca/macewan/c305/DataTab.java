@@ -20,6 +20,7 @@ import javafx.scene.Node;
 import javafx.scene.chart.*;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.Tooltip;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.*;
@@ -30,9 +31,7 @@ import javafx.scene.web.WebEngine;
 import javafx.scene.web.WebView;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Set;
+import java.util.Map;
 
 public class DataTab {
 
@@ -44,34 +43,66 @@ public class DataTab {
     private VBox pieGraphBox;
     private VBox scatterBox;
     private VBox barBox;
+    private final ComputationService charts = new ComputationService("Charts");
 
 
     /**
      * Creates a new BorderPane that contains the map and a side menu of options
      *
-     * @param propertyAssessments
+     * @param session dataset shared by the tabs
      * @return borderPane that contains all the content for the map tab
      */
-    public BorderPane start(PropertyAssessments propertyAssessments, WebView webView, WebEngine webEngine, ObservableList<PropertyAssessment> properties) throws IOException {
-        this.propertyAssessments = propertyAssessments;
+    public BorderPane start(DatasetSession session, WebView webView, WebEngine webEngine) throws IOException {
+        this.propertyAssessments = session.getAssessments();
         borderPane = new BorderPane();
         borderPane.setPadding(new Insets(5));
 
-        pieData = getPieData();
-        SideControls searchBox = new SideControls(propertyAssessments, webEngine, properties);
+        SideControls searchBox = new SideControls(session, webEngine);
         borderPane.setLeft(searchBox.getPanel());
 
-        pieGraphBox = createPieChart(pieData);
-
-        borderPane.setCenter(pieGraphBox);
+        borderPane.setCenter(new ProgressIndicator());
+        showPieChart();
+        session.addListener(datasetChanged -> refresh());
 
         return borderPane;
     }
 
     public void refresh(){
-        pieData = getPieData();
-        pieGraphBox = createPieChart(pieData);
-        borderPane.setCenter(pieGraphBox);
+        if (borderPane != null) {
+            showPieChart();
+        }
+    }
+
+    /*
+     * The chart data is prepared in the background from a snapshot of the current subset, and
+     * only the chart itself is built on the JavaFX application thread.
+     */
+
+    private void showPieChart() {
+        PropertyAssessments current = propertyAssessments.snapshot();
+        charts.submit(() -> getPieData(current), data -> {
+            pieData = data;
+            pieGraphBox = createPieChart(pieData);
+            borderPane.setCenter(pieGraphBox);
+        });
+    }
+
+    private void showScatter() {
+        PropertyAssessments current = propertyAssessments.snapshot();
+        charts.submit(() -> getScatterData(current), data -> {
+            scatterData = data;
+            scatterBox = createScatter();
+            borderPane.setCenter(scatterBox);
+        });
+    }
+
+    private void showBar() {
+        PropertyAssessments current = propertyAssessments.snapshot();
+        charts.submit(() -> getBarData(current), data -> {
+            barData = data;
+            barBox = createBarBox();
+            borderPane.setCenter(barBox);
+        });
     }
 
     /**
@@ -96,25 +127,19 @@ public class DataTab {
         pieChartButton.setOnAction(new EventHandler<ActionEvent>() {
             @Override
             public void handle(ActionEvent actionEvent) {
-                pieData = getPieData();
-                pieGraphBox = createPieChart(pieData);
-                borderPane.setCenter(pieGraphBox);
+                showPieChart();
             }
         });
         scatterButton.setOnAction(new EventHandler<ActionEvent>() {
             @Override
             public void handle(ActionEvent actionEvent) {
-                scatterData =  getScatterData();
-                scatterBox = createScatter();
-                borderPane.setCenter(scatterBox);
+                showScatter();
             }
         });
         barButton.setOnAction(new EventHandler<ActionEvent>() {
             @Override
             public void handle(ActionEvent actionEvent) {
-                barData = getBarData();
-                barBox = createBarBox();
-                borderPane.setCenter(barBox);
+                showBar();
             }
         });
         Region spacer = new Region();
@@ -235,12 +260,16 @@ public class DataTab {
      */
     public XYChart.Series<String, Number> getScatterData()
     {
-        // declare set
-        Set<String> neighbourhoodSet = propertyAssessments.getNeighborhoodSet();
+        return getScatterData(propertyAssessments);
+    }
+
+    private static XYChart.Series<String, Number> getScatterData(PropertyAssessments propertyAssessments)
+    {
+        // The mean of every neighbourhood comes from the statistics kept for it
+        Map<String, StatisticsAccumulator> neighbourhoodStatistics = propertyAssessments.getStatisticsByNeighbourhood();
         XYChart.Series<String, Number> neighbourhoodData = new XYChart.Series<>();
-        for (String neighbourhood : neighbourhoodSet) {
-            PropertyAssessments neighbourhoodAssessments = propertyAssessments.getAssessmentsByNeighbourhood(neighbourhood);
-            neighbourhoodData.getData().add(new XYChart.Data<>(neighbourhood, neighbourhoodAssessments.getMean()));
+        for (Map.Entry<String, StatisticsAccumulator> neighbourhood : neighbourhoodStatistics.entrySet()) {
+            neighbourhoodData.getData().add(new XYChart.Data<>(neighbourhood.getKey(), (int) neighbourhood.getValue().getMean()));
         }
         return neighbourhoodData;
     }
@@ -250,13 +279,19 @@ public class DataTab {
      * @return Series for the chart
      */
     public XYChart.Series<String, Number> getBarData()
+    {
+        return getBarData(propertyAssessments);
+    }
+
+    private static XYChart.Series<String, Number> getBarData(PropertyAssessments propertyAssessments)
     {
         // declare set
         String[] wardList = propertyAssessments.getSortedWardList();
+        Map<String, StatisticsAccumulator> wardStatistics = propertyAssessments.getStatisticsByWard();
         XYChart.Series<String, Number> wardData = new XYChart.Series<>();
         for (String ward : wardList) {
-            PropertyAssessments wardAssessments = propertyAssessments.getAssessmentsByWard(ward);
-            wardData.getData().add(new XYChart.Data<>(ward, wardAssessments.getMean()));
+            StatisticsAccumulator statistics = wardStatistics.getOrDefault(ward, new StatisticsAccumulator());
+            wardData.getData().add(new XYChart.Data<>(ward, (int) statistics.getMean()));
         }
         return wardData;
     }
@@ -266,43 +301,41 @@ public class DataTab {
      * @return Observable List of data for the chart
      */
     public ObservableList<PieChart.Data> getPieData()
+    {
+        return getPieData(propertyAssessments);
+    }
+
+    private static ObservableList<PieChart.Data> getPieData(PropertyAssessments propertyAssessments)
     {
         ObservableList<PieChart.Data> pieChartData =
                 FXCollections.observableArrayList();
-        if(propertyAssessments.propertyAssessmentsList.size() < 1)
+        if(propertyAssessments.getPopulation() < 1)
             return  pieChartData;
-        long max = propertyAssessments.getMax();
+        StatisticsSummary statistics = propertyAssessments.getStatistics();
+        long max = statistics.getMax();
         int maxInt = (int)max;
-        List<Integer> list = new ArrayList<>();
-        int mean = propertyAssessments.getMean();
-        long median = propertyAssessments.getMedian();
-
-        list.add((((mean / 2) + 99) / 100 ) * 100);
-        list.add((int)(((median) + 99) / 100 ) * 100);
-        list.add((((mean) + 99) / 100 ) * 100);
-        list.add((((mean * 2) + 99) / 100 ) * 100);
-        list.add(((maxInt + 99) / 100 ) * 100);
-
-        List<Integer> quantity = new ArrayList<>();
-        while(quantity.size() < 5)
-            quantity.add(0);
-
-        for (PropertyAssessment address : propertyAssessments.getPropertyAssessments()) {
-            if (address.getValue() < list.get(0)) {
-                quantity.set(0, quantity.get(0) + 1);
-            } else if (address.getValue() < list.get(1)) {
-                quantity.set(1, quantity.get(1) + 1);
-            } else if (address.getValue() < list.get(2)) {
-                quantity.set(2, quantity.get(2) + 1);
-            } else if (address.getValue() < list.get(3)) {
-                quantity.set(3, quantity.get(3) + 1);
-            } else if (address.getValue() < list.get(4)) {
-                quantity.set(4, quantity.get(4) + 1);
-            }
+        int mean = (int) statistics.getMean();
+        long median = statistics.getMedian();
+
+        // Upper bound of each slice; a slice holds the values from the previous bound up to its own
+        int[] bounds = {
+                (((mean / 2) + 99) / 100 ) * 100,
+                (int)(((median) + 99) / 100 ) * 100,
+                (((mean) + 99) / 100 ) * 100,
+                (((mean * 2) + 99) / 100 ) * 100,
+                ((maxInt + 99) / 100 ) * 100
+        };
+        double[] edges = new double[bounds.length + 1];
+        edges[0] = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < bounds.length; i++) {
+            // A bound below an earlier one leaves its slice empty
+            edges[i + 1] = Math.max(bounds[i], edges[i]);
         }
-        for (int i = 0; i < 5 ; i++ ) {
-            Integer key = (list.get(i)/100000);
-            Integer value = quantity.get(i);
+        Histogram histogram = propertyAssessments.getValueHistogram(edges);
+
+        for (int i = 0; i < bounds.length; i++) {
+            Integer key = (bounds[i]/100000);
+            Integer value = histogram.getCount(i);
             String string = "Less than $" + key.toString() + "00000";
             pieChartData.add(new PieChart.Data(string, value));
         }
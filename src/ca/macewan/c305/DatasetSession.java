@@ -0,0 +1,138 @@
+package ca.macewan.c305;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DatasetSession is the one dataset shared by every tab of the application.
+ *
+ * The loaded dataset is kept unchanged as the base. A search selects rows of the base, as a
+ * RowBitmap, and the current subset is built from those rows; searching again searches within
+ * the selection. Reset drops the selection and shows the base again without copying anything.
+ *
+ * Tabs read the current subset through getAssessments(), which returns the same collection for
+ * the whole run, and are told through a Listener when it changes. Apart from select(), which
+ * may be called on any thread, the session is used on the JavaFX application thread.
+ */
+public class DatasetSession {
+    private final PropertyAssessments assessments = PropertyAssessments.columnar();
+    private PropertyAssessments base = PropertyAssessments.columnar();
+    private RowBitmap selection; // rows of the base in the current subset, null for every row
+    private final List<Listener> listeners = new ArrayList<>();
+
+    /**
+     * Receives the changes of a session on the JavaFX application thread
+     */
+    public interface Listener {
+        /**
+         * @param datasetChanged true when a new dataset was loaded, false when only the
+         *                       selection changed
+         */
+        void changed(boolean datasetChanged);
+    }
+
+    /**
+     * Rows selected from the base of a session, together with the collection built from them
+     */
+    public static final class Selection {
+        private final PropertyAssessments base;
+        private final RowBitmap rows;
+        private final PropertyAssessments assessments;
+
+        private Selection(PropertyAssessments base, RowBitmap rows, PropertyAssessments assessments) {
+            this.base = base;
+            this.rows = rows;
+            this.assessments = assessments;
+        }
+
+        public RowBitmap getRows() {
+            return rows;
+        }
+
+        public PropertyAssessments getAssessments() {
+            return assessments;
+        }
+    }
+
+    /**
+     * Returns the current subset. The collection is the same for the whole run and its contents
+     * are replaced when the subset changes.
+     *
+     * @return the current subset
+     */
+    public PropertyAssessments getAssessments() {
+        return assessments;
+    }
+
+    /**
+     * Starts a query over the base that only matches rows of the current subset
+     *
+     * @return a new query; it can be run on a background thread
+     */
+    public AssessmentQuery newQuery() {
+        AssessmentQuery query = new AssessmentQuery(base);
+        return selection == null ? query : query.within(selection);
+    }
+
+    /**
+     * Builds the subset matched by a query from newQuery(), with its statistics worked out so
+     * showing it does not pause the user interface. May be called on a background thread.
+     *
+     * @param query query over the base of a session
+     * @return the selected rows and their collection
+     */
+    public static Selection select(AssessmentQuery query) {
+        RowBitmap rows = query.getRows();
+        PropertyAssessments subset = query.run();
+        if (subset.getPopulation() > 0) {
+            subset.getStatistics();
+        }
+        return new Selection(query.getSource(), rows, subset);
+    }
+
+    /**
+     * Makes a selection the current subset. A selection made before a new dataset was loaded
+     * is ignored.
+     *
+     * @param selection result of select()
+     */
+    public void show(Selection selection) {
+        if (selection.base != base) {
+            return;
+        }
+        this.selection = selection.rows;
+        assessments.replaceWith(selection.assessments);
+        fireChanged(false);
+    }
+
+    /**
+     * Shows the whole dataset again
+     */
+    public void reset() {
+        selection = null;
+        assessments.replaceWith(base);
+        fireChanged(false);
+    }
+
+    /**
+     * Replaces the dataset with a newly loaded one, which must not be changed afterwards
+     *
+     * @param dataset the new dataset
+     */
+    public void setDataset(PropertyAssessments dataset) {
+        base = dataset;
+        selection = null;
+        assessments.replaceWith(dataset);
+        fireChanged(true);
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    private void fireChanged(boolean datasetChanged) {
+        for (Listener listener : new ArrayList<>(listeners)) {
+            listener.changed(datasetChanged);
+        }
+    }
+}
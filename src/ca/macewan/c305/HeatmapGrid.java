@@ -0,0 +1,254 @@
+package ca.macewan.c305;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * HeatmapGrid is a value weighted density map of property assessments over an area of the map.
+ *
+ * Every assessment adds its value to the cell its location falls in, and the grid is then
+ * smoothed with a Gaussian kernel, which gives the same picture as drawing a Gaussian blob per
+ * point. The binning is one parallel pass over the primitive columns and the smoothing costs
+ * a fixed amount per cell, so the size of the grid, not the number of assessments, decides
+ * most of the cost. Rows of the grid are spaced evenly in Web Mercator, the projection of the
+ * map, so an image of the grid can be laid over the map area as it is.
+ */
+public final class HeatmapGrid {
+    // Gradient of the map's heatmap layer, from no density to the highest density
+    private static final int[] GRADIENT = {
+            0x0000ffff, 0xff00ffff, 0xff00bfff, 0xff007fff, 0xff003fff, 0xff0000ff, 0xff0000df,
+            0xff0000bf, 0xff00009f, 0xff00007f, 0xff3f005b, 0xff7f003f, 0xffbf001f, 0xffff0000
+    };
+    // Rows binned by one task
+    private static final int MIN_ROWS_PER_TASK = 1 << 16;
+
+    private final int width;
+    private final int height;
+    private final double[] density;
+    private final double max;
+
+    private HeatmapGrid(int width, int height, double[] density) {
+        this.width = width;
+        this.height = height;
+        this.density = density;
+        double largest = 0;
+        for (double cell : density) {
+            largest = Math.max(largest, cell);
+        }
+        this.max = largest;
+    }
+
+    /**
+     * Computes the density of the assessments over an area
+     *
+     * @param columns assessments to draw
+     * @param south southern edge of the area, in degrees of latitude
+     * @param west western edge of the area, in degrees of longitude
+     * @param north northern edge of the area
+     * @param east eastern edge of the area
+     * @param width number of columns of the grid
+     * @param height number of rows of the grid
+     * @param sigma standard deviation of the kernel, in cells
+     * @return the grid
+     */
+    public static HeatmapGrid render(AssessmentColumns columns, double south, double west, double north, double east,
+                                     int width, int height, double sigma) {
+        if (width <= 0 || height <= 0 || !(north > south) || !(east > west) || !(sigma > 0)) {
+            throw new IllegalArgumentException("Not a heatmap area: " + width + "x" + height + " cells over "
+                    + south + ", " + west + " to " + north + ", " + east + " with sigma " + sigma);
+        }
+        double[] kernel = gaussianKernel(sigma);
+        // Points just outside the area still spread into it
+        int margin = kernel.length / 2;
+        Area area = new Area(south, west, north, east, width, height, margin);
+
+        int rows = columns.size();
+        int tasks = Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism(), rows / MIN_ROWS_PER_TASK));
+        double[] binned = IntStream.range(0, tasks).parallel()
+                .mapToObj(task -> area.bin(columns, (int) ((long) rows * task / tasks), (int) ((long) rows * (task + 1) / tasks)))
+                .reduce(HeatmapGrid::sum)
+                .orElseGet(() -> new double[area.paddedWidth * area.paddedHeight]);
+        return new HeatmapGrid(width, height, area.smooth(binned, kernel));
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @param x column, from west to east
+     * @param y row, from north to south
+     * @return the smoothed total value near the cell
+     */
+    public double getDensity(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            throw new IndexOutOfBoundsException("Cell " + x + ", " + y + " of " + width + "x" + height);
+        }
+        return density[y * width + x];
+    }
+
+    /**
+     * @return the highest density of the grid, 0 if no assessment is near the area
+     */
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * Colours the grid with the gradient of the map's heatmap layer, scaled to the highest
+     * density. Cells without density are transparent.
+     *
+     * @return ARGB pixels, row by row from the north
+     */
+    public int[] toArgb() {
+        int[] pixels = new int[density.length];
+        if (max == 0) {
+            return pixels;
+        }
+        int last = GRADIENT.length - 1;
+        for (int i = 0; i < density.length; i++) {
+            double position = density[i] / max * last;
+            int low = Math.min((int) position, last - 1);
+            pixels[i] = blend(GRADIENT[low], GRADIENT[low + 1], position - low);
+        }
+        return pixels;
+    }
+
+    /**
+     * @return the coloured grid as a PNG image
+     */
+    public byte[] toPng() {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(0, 0, width, height, toArgb(), 0, width);
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(image, "png", png);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // not thrown when writing to memory
+        }
+        return png.toByteArray();
+    }
+
+    private static int blend(int from, int to, double fraction) {
+        int argb = 0;
+        for (int shift = 0; shift < 32; shift += 8) {
+            int a = (from >>> shift) & 0xff;
+            int b = (to >>> shift) & 0xff;
+            argb |= (int) Math.round(a + (b - a) * fraction) << shift;
+        }
+        return argb;
+    }
+
+    private static double[] sum(double[] a, double[] b) {
+        for (int i = 0; i < a.length; i++) {
+            a[i] += b[i];
+        }
+        return a;
+    }
+
+    /**
+     * Returns a normalized Gaussian kernel that reaches out three standard deviations
+     */
+    private static double[] gaussianKernel(double sigma) {
+        int radius = Math.max(1, (int) Math.ceil(3 * sigma));
+        double[] kernel = new double[2 * radius + 1];
+        double total = 0;
+        for (int i = -radius; i <= radius; i++) {
+            kernel[i + radius] = Math.exp(-(double) i * i / (2 * sigma * sigma));
+            total += kernel[i + radius];
+        }
+        for (int i = 0; i < kernel.length; i++) {
+            kernel[i] /= total;
+        }
+        return kernel;
+    }
+
+    private static double mercatorY(double latitude) {
+        return Math.log(Math.tan(Math.PI / 4 + Math.toRadians(latitude) / 2));
+    }
+
+    /**
+     * The cells of the area plus a margin on every side
+     */
+    private static final class Area {
+        final int width;
+        final int height;
+        final int margin;
+        final int paddedWidth;
+        final int paddedHeight;
+        final double west;
+        final double cellsPerDegree;
+        final double northY;
+        final double cellsPerY;
+
+        Area(double south, double west, double north, double east, int width, int height, int margin) {
+            this.width = width;
+            this.height = height;
+            this.margin = margin;
+            this.paddedWidth = width + 2 * margin;
+            this.paddedHeight = height + 2 * margin;
+            this.west = west;
+            this.cellsPerDegree = width / (east - west);
+            this.northY = mercatorY(north);
+            this.cellsPerY = height / (northY - mercatorY(south));
+        }
+
+        double[] bin(AssessmentColumns columns, int from, int to) {
+            double[] cells = new double[paddedWidth * paddedHeight];
+            double[] latitudes = columns.latitudeColumn();
+            double[] longitudes = columns.longitudeColumn();
+            int[] values = columns.valueColumn();
+            for (int row = from; row < to; row++) {
+                double x = (longitudes[row] - west) * cellsPerDegree + margin;
+                if (!(x >= 0 && x < paddedWidth) || values[row] <= 0) {
+                    continue; // checked first, it saves the projection of most rows when zoomed in
+                }
+                double y = (northY - mercatorY(latitudes[row])) * cellsPerY + margin;
+                if (y >= 0 && y < paddedHeight) {
+                    cells[(int) y * paddedWidth + (int) x] += values[row];
+                }
+            }
+            return cells;
+        }
+
+        /**
+         * Blurs the binned cells down the columns and then along the rows, and cuts off the margin
+         */
+        double[] smooth(double[] cells, double[] kernel) {
+            int radius = kernel.length / 2;
+            double[] across = new double[paddedWidth * height];
+            IntStream.range(0, height).parallel().forEach(y -> {
+                for (int k = -radius; k <= radius; k++) {
+                    double weight = kernel[k + radius];
+                    int source = (y + margin + k) * paddedWidth;
+                    int target = y * paddedWidth;
+                    for (int x = 0; x < paddedWidth; x++) {
+                        across[target + x] += weight * cells[source + x];
+                    }
+                }
+            });
+            double[] smoothed = new double[width * height];
+            IntStream.range(0, height).parallel().forEach(y -> {
+                int source = y * paddedWidth + margin;
+                int target = y * width;
+                for (int x = 0; x < width; x++) {
+                    double total = 0;
+                    for (int k = -radius; k <= radius; k++) {
+                        total += kernel[k + radius] * across[source + x + k];
+                    }
+                    smoothed[target + x] = total;
+                }
+            });
+            return smoothed;
+        }
+    }
+}
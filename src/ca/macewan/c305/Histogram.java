@@ -0,0 +1,185 @@
+package ca.macewan.c305;
+
+import java.util.Arrays;
+
+/**
+ * Histogram counts how many assessed values fall in each of a row of bins.
+ *
+ * Bin i holds the values from edges[i] up to, but not including, edges[i + 1]. The edges can be
+ * given directly or made evenly spaced, evenly spaced on a log scale, or at quantiles so every
+ * bin holds about the same number of values. Counting is one pass over the primitive values
+ * into an int[].
+ */
+public final class Histogram {
+    private final double[] edges;
+    private final int[] counts;
+    private final int below;
+    private final int above;
+
+    private Histogram(int[] values, int size, double[] edges) {
+        for (int i = 1; i < edges.length; i++) {
+            if (!(edges[i] >= edges[i - 1])) {
+                throw new IllegalArgumentException("Bin edges must not decrease: " + Arrays.toString(edges));
+            }
+        }
+        if (edges.length < 2) {
+            throw new IllegalArgumentException("A histogram needs at least one bin");
+        }
+        this.edges = edges;
+        this.counts = new int[edges.length - 1];
+
+        int belowCount = 0;
+        int aboveCount = 0;
+        double first = edges[0];
+        double last = edges[edges.length - 1];
+        for (int i = 0; i < size; i++) {
+            int value = values[i];
+            if (value < first) {
+                belowCount++;
+            } else if (value >= last) {
+                aboveCount++;
+            } else {
+                counts[binOf(value)]++;
+            }
+        }
+        this.below = belowCount;
+        this.above = aboveCount;
+    }
+
+    /**
+     * Counts values into bins with the given edges
+     *
+     * @param values values to count
+     * @param size number of values
+     * @param edges edges of the bins, not decreasing; may be infinite
+     * @return the histogram
+     */
+    public static Histogram withEdges(int[] values, int size, double... edges) {
+        return new Histogram(values, size, edges.clone());
+    }
+
+    /**
+     * Counts values into bins of equal width from the smallest to the largest value
+     *
+     * @param values values to count, at least one
+     * @param size number of values
+     * @param bins number of bins
+     * @return the histogram
+     */
+    public static Histogram fixedWidth(int[] values, int size, int bins) {
+        int[] range = range(values, size);
+        double min = range[0];
+        double width = ((double) range[1] - min) / bins;
+        double[] edges = new double[bins + 1];
+        for (int i = 0; i < bins; i++) {
+            edges[i] = min + width * i;
+        }
+        edges[bins] = Math.nextUp((double) range[1]);
+        return new Histogram(values, size, edges);
+    }
+
+    /**
+     * Counts values into bins whose edges grow by the same factor, which suits values that
+     * span several orders of magnitude. Values below 1 are counted in getBelow().
+     *
+     * @param values values to count, at least one
+     * @param size number of values
+     * @param bins number of bins
+     * @return the histogram
+     */
+    public static Histogram logScale(int[] values, int size, int bins) {
+        int[] range = range(values, size);
+        double min = Math.max(range[0], 1);
+        double max = Math.max(range[1], min);
+        double ratio = Math.log(max / min) / bins;
+        double[] edges = new double[bins + 1];
+        for (int i = 0; i < bins; i++) {
+            edges[i] = min * Math.exp(ratio * i);
+        }
+        edges[bins] = Math.nextUp(max);
+        return new Histogram(values, size, edges);
+    }
+
+    /**
+     * Counts values into bins with edges at evenly spaced quantiles, so the bins hold about
+     * the same number of values
+     *
+     * @param values values to count, at least one
+     * @param size number of values
+     * @param bins number of bins
+     * @return the histogram
+     */
+    public static Histogram quantileBins(int[] values, int size, int bins) {
+        double[] quantiles = new double[bins + 1];
+        for (int i = 0; i <= bins; i++) {
+            quantiles[i] = (double) i / bins;
+        }
+        double[] edges = Quantiles.of(values, size, quantiles);
+        edges[bins] = Math.nextUp(edges[bins]);
+        return new Histogram(values, size, edges);
+    }
+
+    public int getBinCount() {
+        return counts.length;
+    }
+
+    public double getLower(int bin) {
+        return edges[bin];
+    }
+
+    public double getUpper(int bin) {
+        return edges[bin + 1];
+    }
+
+    public int getCount(int bin) {
+        return counts[bin];
+    }
+
+    /**
+     * @return the number of values below the first edge
+     */
+    public int getBelow() {
+        return below;
+    }
+
+    /**
+     * @return the number of values at or above the last edge
+     */
+    public int getAbove() {
+        return above;
+    }
+
+    /**
+     * Returns the bin of a value between the first and last edge. When edges are equal the
+     * empty bins are skipped, so the value goes in the last bin whose lower edge it reaches.
+     */
+    private int binOf(int value) {
+        int low = 0;
+        int high = edges.length - 1;
+        while (high - low > 1) {
+            int mid = (low + high) >>> 1;
+            if (edges[mid] <= value) {
+                low = mid;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the smallest and largest of the values
+     */
+    private static int[] range(int[] values, int size) {
+        if (size == 0) {
+            throw new IndexOutOfBoundsException("No histogram range of 0 values");
+        }
+        int min = values[0];
+        int max = values[0];
+        for (int i = 1; i < size; i++) {
+            min = Math.min(min, values[i]);
+            max = Math.max(max, values[i]);
+        }
+        return new int[] {min, max};
+    }
+}
@@ -0,0 +1,93 @@
+package ca.macewan.c305;
+
+import java.util.Arrays;
+
+/**
+ * IntHashIndex maps int keys to row numbers with open addressing over two int arrays.
+ *
+ * Lookups take constant time and never box the key. When a key is added more than once the
+ * first row is kept, matching a front to back search.
+ */
+public class IntHashIndex {
+    public static final int NOT_FOUND = -1;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] keys = new int[INITIAL_CAPACITY];
+    private int[] rows = new int[INITIAL_CAPACITY];
+    private int size;
+
+    public IntHashIndex() {
+        Arrays.fill(rows, NOT_FOUND);
+    }
+
+    /**
+     * Adds a key, unless the index already contains it
+     *
+     * @param key key to add
+     * @param row row of the key, must not be negative
+     */
+    public void put(int key, int row) {
+        if ((size + 1) * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (rows[slot] != NOT_FOUND) {
+            if (keys[slot] == key) {
+                return; // keep the first row
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        rows[slot] = row;
+        size++;
+    }
+
+    /**
+     * Returns the row of a key
+     *
+     * @param key key to look up
+     * @return the row, or NOT_FOUND if the index does not contain the key
+     */
+    public int get(int key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (rows[slot] != NOT_FOUND) {
+            if (keys[slot] == key) {
+                return rows[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return NOT_FOUND;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(rows, NOT_FOUND);
+        size = 0;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldRows = rows;
+        keys = new int[capacity];
+        rows = new int[capacity];
+        Arrays.fill(rows, NOT_FOUND);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldRows[i] != NOT_FOUND) {
+                put(oldKeys[i], oldRows[i]);
+            }
+        }
+    }
+
+    private static int hash(int key) {
+        // Spread the bits so consecutive account numbers do not cluster
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,73 @@
+package ca.macewan.c305;
+
+import java.util.Arrays;
+
+/**
+ * IntSelection finds the k-th smallest element of an int array without sorting it.
+ *
+ * It is an introselect: a quickselect with median of three pivots that sorts the remaining
+ * range if partitioning stops making progress, so it takes linear time on typical data and
+ * never worse than a sort. The array is reordered in place.
+ */
+public final class IntSelection {
+    // Ranges this small are sorted instead of partitioned
+    private static final int SORT_THRESHOLD = 16;
+
+    private IntSelection() {
+    }
+
+    /**
+     * Moves the k-th smallest element of a range to position k. Afterwards no element before k
+     * is greater than it and no element after k is less than it.
+     *
+     * @param values array to reorder
+     * @param from first position of the range
+     * @param to position after the end of the range
+     * @param k position to fill, from inclusive to to exclusive
+     * @return the k-th smallest element
+     */
+    public static int select(int[] values, int from, int to, int k) {
+        if (k < from || k >= to) {
+            throw new IndexOutOfBoundsException("Position " + k + " is outside " + from + " to " + to);
+        }
+        // Allow about two bad partitions per halving before giving up on partitioning
+        int depthLimit = 2 * (32 - Integer.numberOfLeadingZeros(to - from));
+        while (to - from > SORT_THRESHOLD) {
+            if (depthLimit-- == 0) {
+                Arrays.sort(values, from, to);
+                return values[k];
+            }
+            int pivot = medianOfThree(values[from], values[(from + to) >>> 1], values[to - 1]);
+
+            // Three way partition: [from, lt) < pivot, [lt, gt) == pivot, [gt, to) > pivot
+            int lt = from;
+            int gt = to;
+            int i = from;
+            while (i < gt) {
+                int value = values[i];
+                if (value < pivot) {
+                    values[i++] = values[lt];
+                    values[lt++] = value;
+                } else if (value > pivot) {
+                    values[i] = values[--gt];
+                    values[gt] = value;
+                } else {
+                    i++;
+                }
+            }
+            if (k < lt) {
+                to = lt;
+            } else if (k >= gt) {
+                from = gt;
+            } else {
+                return pivot;
+            }
+        }
+        Arrays.sort(values, from, to);
+        return values[k];
+    }
+
+    private static int medianOfThree(int a, int b, int c) {
+        return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+    }
+}
@@ -1,7 +1,6 @@
 package ca.macewan.c305;
 
 import java.io.IOException;
-import java.nio.file.Paths;
 import java.util.Scanner;
 
 /**
@@ -29,20 +28,21 @@ public class Lab2Main {
             filename = "Property_Assessment_Data__Current_Calendar_Year_.csv";
         }
         try {
-            PropertyAssessments propertyAssessments = makePropertyAssessments(filename);
+            PropertyAssessments propertyAssessments = PropertyAssessments.columnar();
+            AssessmentLoader.load(filename, propertyAssessments);
             System.out.println("Descriptive statistics of all property assessments");
 
             // prints the descriptive statistics (used again for Neighbourhoods and Assessment Class)
             System.out.println(propertyAssessments);
 
-            try {
-                // Get input from user for which property assessment to search for:
-                System.out.print("\nFind a property assessment by account number: ");
-                input = new Scanner(System.in);
-                int accountNum = input.nextInt();
-                PropertyAssessment propertyAssessment = propertyAssessments.getPropertyAssessment(accountNum);
+            // Get input from user for which property assessment to search for:
+            System.out.print("\nFind a property assessment by account number: ");
+            input = new Scanner(System.in);
+            int accountNum = input.nextInt();
+            PropertyAssessment propertyAssessment = propertyAssessments.getPropertyAssessment(accountNum);
+            if (propertyAssessment != null) {
                 System.out.println(propertyAssessment);
-            } catch (ClassNotFoundException er) {
+            } else {
                 System.out.println("Error: Property Assessment not found");
             }
 
@@ -57,40 +57,4 @@ public class Lab2Main {
             e.printStackTrace();
         }
     }
-
-    private static PropertyAssessments makePropertyAssessments(String filename) throws IOException {
-        Scanner file = new Scanner(Paths.get(filename));
-        int n = getLength(file);
-
-        // re-read file as scanner needs to point at beginning again
-        file = new Scanner(Paths.get(filename));
-        if (file.hasNextLine()) { // Skip header
-            file.nextLine();
-        }
-
-        PropertyAssessments propertyAssessments = new PropertyAssessments();
-
-        for (int i = 0 ; i < n && file.hasNextLine() ; i++){
-            // iterate through each line and make a Property Assessment from each
-            String currentLine = file.nextLine();
-            PropertyAssessment propertyAssessment = propertyAssessments.parseLineToAssessment(currentLine);
-
-            // add propertyAssessment to List
-            propertyAssessments.addPropertyAssessment(propertyAssessment);
-        }
-
-        return propertyAssessments;
-    }
-
-    private static int getLength(Scanner file){
-        int n = 0;
-        if (file.hasNextLine()) {
-            file.nextLine();
-        }
-        while (file.hasNextLine()) {
-            file.nextLine();
-            n++;
-        }
-        return n;
-    }
 }
@@ -1,7 +1,6 @@
 package ca.macewan.c305;
 
 import java.io.IOException;
-import java.nio.file.Paths;
 import java.util.Scanner;
 
 /**
@@ -30,7 +29,8 @@ public class Lab3Main {
             filename = "Property_Assessment_Data__Current_Calendar_Year_.csv";
         }
         try {
-            PropertyAssessments propertyAssessments = makePropertyAssessments(filename);
+            PropertyAssessments propertyAssessments = PropertyAssessments.columnar();
+            AssessmentLoader.load(filename, propertyAssessments);
 
             System.out.print("Assessment class: ");
 
@@ -44,40 +44,4 @@ public class Lab3Main {
             e.printStackTrace();
         }
     }
-
-    private static PropertyAssessments makePropertyAssessments(String filename) throws IOException {
-        Scanner file = new Scanner(Paths.get(filename));
-        int n = getLength(file);
-
-        // re-read file as scanner needs to point at beginning again
-        file = new Scanner(Paths.get(filename));
-        if (file.hasNextLine()) { // Skip header
-            file.nextLine();
-        }
-
-        PropertyAssessments propertyAssessments = new PropertyAssessments();
-
-        for (int i = 0 ; i < n && file.hasNextLine() ; i++){
-            // iterate through each line and make a Property Assessment from each
-            String currentLine = file.nextLine();
-            PropertyAssessment propertyAssessment = propertyAssessments.parseLineToAssessment(currentLine);
-
-            // add propertyAssessment to List
-            propertyAssessments.addPropertyAssessment(propertyAssessment);
-        }
-
-        return propertyAssessments;
-    }
-
-    private static int getLength(Scanner file){
-        int n = 0;
-        if (file.hasNextLine()) {
-            file.nextLine();
-        }
-        while (file.hasNextLine()) {
-            file.nextLine();
-            n++;
-        }
-        return n;
-    }
 }
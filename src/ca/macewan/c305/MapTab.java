@@ -1,6 +1,5 @@
 package ca.macewan.c305;
 
-import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 import javafx.geometry.Insets;
@@ -12,9 +11,12 @@ import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 import javafx.scene.web.WebEngine;
 import javafx.scene.web.WebView;
+import netscape.javascript.JSObject;
+
 import java.io.IOException;
 import java.net.URL;
 import java.text.NumberFormat;
+import java.util.Base64;
 
 /**
  * Map tab class
@@ -22,31 +24,41 @@ import java.text.NumberFormat;
  * @author Dakota Doolaege
  */
 public class MapTab {
+    // Largest number of heatmap points sent to the map page in one call
+    private static final int POINTS_PER_BATCH = 1 << 18;
+    // Larger datasets are drawn as heatmap images rendered by HeatmapGrid
+    private static final int MAX_PAGE_HEATMAP_POINTS = 20000;
+    // Screen pixels per cell of a rendered heatmap, and the spread of each property in pixels
+    private static final int HEATMAP_CELL_PIXELS = 2;
+    private static final double HEATMAP_SIGMA_PIXELS = 8;
+
     private WebView webView;
     private WebEngine webEngine;
     private PropertyAssessments customCollection;
     private PropertyAssessments propertyAssessments; //The subset
     private NumberFormat moneyMaker = NumberFormat.getCurrencyInstance();
+    private PropertyAssessments heatmapDataset; // drawn by rendered images, null if none
+    private final HeatmapBridge heatmapBridge = new HeatmapBridge(); // the page only keeps a weak reference
+    private final ComputationService heatmaps = new ComputationService("Heatmap");
 
     /**
      * Creates a new BorderPane that contains the map and a side menu of options
      *
-     * @param propertyAssessments
+     * @param session dataset shared by the tabs
      * @param webView
      * @param webEngine
-     * @param properties
      * @return borderPane that contains all the content for the map tab
      */
-    public BorderPane start(PropertyAssessments propertyAssessments, WebView webView, WebEngine webEngine, ObservableList<PropertyAssessment> properties) throws IOException {
+    public BorderPane start(DatasetSession session, WebView webView, WebEngine webEngine) throws IOException {
         moneyMaker.setMaximumFractionDigits(0);
         this.webView = webView;
         this.webEngine = webEngine;
-        this.propertyAssessments = propertyAssessments;
+        this.propertyAssessments = session.getAssessments();
         BorderPane borderPane = new BorderPane();
         borderPane.setPadding(new Insets(5));
 
         VBox mapBox = createMap();
-        SideControls searchBox = new SideControls(propertyAssessments, this.webEngine, properties);
+        SideControls searchBox = new SideControls(session, this.webEngine);
 
         borderPane.setLeft(searchBox.getPanel());
         borderPane.setCenter(mapBox);
@@ -115,6 +127,8 @@ public class MapTab {
                 if(webEngine != null) {
                     webEngine.executeScript("clearMap()");
                 }
+                heatmaps.cancel();
+                heatmapDataset = null;
                 customCollection = null;
             }
         });
@@ -126,12 +140,13 @@ public class MapTab {
     }
 
     /**
-     * Converts the list of properties in the PropertyAssessment class into a javascript
-     * array and sends the array to the javascript function in the map document
+     * Shows a heatmap of the current data. A small dataset is sent to the heatmap layer of the
+     * map document, which redraws it by itself as the map moves. A large one is drawn in Java:
+     * the page asks for an image of the visible area every time the map stops moving, see
+     * HeatmapBridge, so its cost follows the size of the map rather than the number of properties.
      *
      */
     private void jsLoadProperties(){
-        StringBuilder jsArray = new StringBuilder();
         PropertyAssessments dataset;
         if (customCollection != null){
             dataset = customCollection;
@@ -140,23 +155,51 @@ public class MapTab {
             dataset = propertyAssessments;
         }
         updateLegend(dataset);
-        jsArray.append("[");
-        String point = "";
-        int c = 0;
-        for (PropertyAssessment property : dataset.getPropertyAssessments()){
-            point = "["+ property.getLatitude()+", "+property.getLongitude() + "," + property.getValue() + "],";
-            jsArray.append(point);
-            c++;
-            if (c > 100000){ //Sends properties in batches of max size 100000 to avoid js range error
-                jsArray.append("]");
-                webEngine.executeScript("addProperties("+ jsArray.toString()+")");
-                jsArray = new StringBuilder();
-                jsArray.append("[");
-                c=0;
+        AssessmentColumns columns = dataset.getColumns();
+        JSObject window = (JSObject) webEngine.executeScript("window");
+        if (columns.size() > MAX_PAGE_HEATMAP_POINTS) {
+            heatmapDataset = dataset.snapshot();
+            window.setMember("javaHeatmap", heatmapBridge);
+            webEngine.executeScript("enableHeatmapImages()");
+            return;
+        }
+        // The points are packed into typed arrays (see PackedPoints) and passed to the page as
+        // a String argument, so the script engine never parses them as source
+        for (int from = 0; from < columns.size(); from += POINTS_PER_BATCH) {
+            int to = Math.min(from + POINTS_PER_BATCH, columns.size());
+            window.call("addPackedProperties", PackedPoints.encode(columns, from, to), to - from);
+        }
+    }
+
+    /**
+     * Renders the heatmap of an area of the map in the background and lays it over the area
+     */
+    private void renderHeatmap(double south, double west, double north, double east, int width, int height) {
+        PropertyAssessments dataset = heatmapDataset;
+        if (dataset == null || width <= 0 || height <= 0 || !(north > south) || !(east > west)) {
+            return;
+        }
+        heatmaps.submit(() -> {
+            HeatmapGrid grid = HeatmapGrid.render(dataset.getColumns(), south, west, north, east,
+                    Math.max(1, width / HEATMAP_CELL_PIXELS), Math.max(1, height / HEATMAP_CELL_PIXELS),
+                    HEATMAP_SIGMA_PIXELS / HEATMAP_CELL_PIXELS);
+            return "data:image/png;base64," + Base64.getEncoder().encodeToString(grid.toPng());
+        }, image -> {
+            if (heatmapDataset == dataset) {
+                JSObject window = (JSObject) webEngine.executeScript("window");
+                window.call("showHeatmapImage", image, south, west, north, east);
             }
+        });
+    }
+
+    /**
+     * Called by the map document with the visible area of the map, on the JavaFX application
+     * thread. Must be public for the page to see its method.
+     */
+    public class HeatmapBridge {
+        public void viewportChanged(double south, double west, double north, double east, int width, int height) {
+            renderHeatmap(south, west, north, east, width, height);
         }
-        jsArray.append("]");
-        webEngine.executeScript("addProperties("+ jsArray.toString()+")");
     }
 
     /**
@@ -164,7 +207,9 @@ public class MapTab {
      * @param properties
      */
     private void updateLegend(PropertyAssessments properties){
-        if(properties.propertyAssessmentsList.size() > 1)
-            webEngine.executeScript("legend(\"" + moneyMaker.format(properties.getMax())+ "\",\"" + moneyMaker.format(properties.getMin()) +"\")");
+        if(properties.getPopulation() > 1) {
+            StatisticsSummary statistics = properties.getStatistics();
+            webEngine.executeScript("legend(\"" + moneyMaker.format(statistics.getMax())+ "\",\"" + moneyMaker.format(statistics.getMin()) +"\")");
+        }
     }
 }
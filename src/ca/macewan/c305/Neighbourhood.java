@@ -1,6 +1,8 @@
 package ca.macewan.c305;
 
+import java.util.Arrays;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  *  Neighbourhood.java
@@ -16,9 +18,15 @@ import java.util.Objects;
  */
 
 public class Neighbourhood {
-    private int nbhoodID;
-    private String nbhood;
-    private String ward;
+    // Shared instances, there are only a few hundred neighbourhoods for hundreds of thousands of rows
+    private static final ConcurrentHashMap<Neighbourhood, Neighbourhood> instances = new ConcurrentHashMap<>();
+    // Last shared instance for each neighbourhood name code, checked before the map so lookups don't allocate.
+    // Elements are written without a lock; the fields are final so a reader never sees a partly built one.
+    private static volatile Neighbourhood[] byNameCode = new Neighbourhood[64];
+
+    private final int nbhoodID;
+    private final String nbhood;
+    private final String ward;
 
     public Neighbourhood(int nbhoodID, String nbhood, String ward){
         this.nbhoodID = nbhoodID;
@@ -26,6 +34,40 @@ public class Neighbourhood {
         this.ward = ward;
     }
 
+    /**
+     * Returns the shared Neighbourhood with the given values, creating it the first time.
+     * Neighbourhoods are never changed, so every row in a neighbourhood can use the same object.
+     *
+     * @param nbhoodID neighbourhood id
+     * @param nbhood neighbourhood name
+     * @param ward ward of the neighbourhood
+     * @return the shared Neighbourhood
+     */
+    public static Neighbourhood of(int nbhoodID, String nbhood, String ward) {
+        int code = AssessmentColumns.NEIGHBOURHOODS.getCode(nbhood);
+        Neighbourhood[] table = byNameCode;
+        if (code < table.length) {
+            Neighbourhood neighbourhood = table[code];
+            if (neighbourhood != null && neighbourhood.nbhoodID == nbhoodID
+                    && neighbourhood.nbhood.equals(nbhood) && neighbourhood.ward.equals(ward)) {
+                return neighbourhood;
+            }
+        }
+        return register(code, new Neighbourhood(nbhoodID, nbhood, ward));
+    }
+
+    private static synchronized Neighbourhood register(int code, Neighbourhood neighbourhood) {
+        Neighbourhood shared = instances.computeIfAbsent(neighbourhood, key -> new Neighbourhood(
+                key.nbhoodID, AssessmentColumns.NEIGHBOURHOODS.intern(key.nbhood), AssessmentColumns.WARDS.intern(key.ward)));
+        Neighbourhood[] table = byNameCode;
+        if (code >= table.length) {
+            table = Arrays.copyOf(table, Math.max(code + 1, table.length * 2));
+        }
+        table[code] = shared;
+        byNameCode = table;
+        return shared;
+    }
+
     public double getID(){
         return this.nbhoodID;
     }
@@ -47,6 +89,8 @@ public class Neighbourhood {
     }
 
     public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
         if (!(obj instanceof Neighbourhood))
             return false;
         return this.nbhoodID == ((Neighbourhood) obj).nbhoodID
@@ -0,0 +1,42 @@
+package ca.macewan.c305;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Base64;
+
+/**
+ * PackedPoints encodes the locations and values of property assessments as one base64 String
+ * that the map page decodes straight into typed arrays.
+ *
+ * For count points the decoded bytes are count latitudes and then count longitudes as
+ * little endian Float64, followed by count values as little endian Int32, so the page can
+ * wrap a Float64Array and an Int32Array around them without parsing any numbers.
+ */
+public final class PackedPoints {
+    public static final int BYTES_PER_POINT = 8 + 8 + 4;
+
+    private PackedPoints() {
+    }
+
+    /**
+     * Encodes the points of a range of rows
+     *
+     * @param columns rows to read
+     * @param from first row, inclusive
+     * @param to last row, exclusive
+     * @return the base64 encoded points
+     */
+    public static String encode(AssessmentColumns columns, int from, int to) {
+        if (from < 0 || to > columns.size() || from > to) {
+            throw new IndexOutOfBoundsException("Rows " + from + " to " + to + " of " + columns.size());
+        }
+        int count = to - from;
+        ByteBuffer buffer = ByteBuffer.allocate(count * BYTES_PER_POINT).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asDoubleBuffer().put(columns.latitudeColumn(), from, count);
+        buffer.position(count * 8);
+        buffer.asDoubleBuffer().put(columns.longitudeColumn(), from, count);
+        buffer.position(count * 16);
+        buffer.asIntBuffer().put(columns.valueColumn(), from, count);
+        return Base64.getEncoder().encodeToString(buffer.array());
+    }
+}
@@ -0,0 +1,183 @@
+package ca.macewan.c305;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * PolygonIndex answers whether points are inside a polygon, e.g. a ward or neighbourhood
+ * boundary or an area drawn by the user.
+ *
+ * A point is inside when a ray from it towards the east crosses the edges of the polygon an odd
+ * number of times. The polygon's latitude range is cut into horizontal buckets, and each bucket
+ * lists the edges that reach into it, so a point is tested against the few edges of its own
+ * bucket instead of every edge. Points outside the bounding box are rejected without looking
+ * at any edge.
+ */
+public final class PolygonIndex {
+    // Average number of edges per bucket the buckets are sized for
+    private static final int EDGES_PER_BUCKET = 4;
+
+    private final double minLatitude;
+    private final double maxLatitude;
+    private final double minLongitude;
+    private final double maxLongitude;
+    private final int bucketCount;
+    private final double bucketsPerLatitude;
+    // Edges of bucket b are bucketEdges[bucketOffsets[b]] to bucketEdges[bucketOffsets[b + 1] - 1]
+    private final int[] bucketOffsets;
+    private final int[] bucketEdges;
+    // Edge e runs from edgeLatitudes[e], edgeLongitudes[e] with edgeSlopes[e] degrees of
+    // longitude per degree of latitude, between edgeLow[e] and edgeHigh[e] latitudes
+    private final double[] edgeLatitudes;
+    private final double[] edgeLongitudes;
+    private final double[] edgeSlopes;
+    private final double[] edgeLow;
+    private final double[] edgeHigh;
+
+    /**
+     * @param coordinates packed latitude, longitude pairs of the corners, the last corner joined
+     *                    back to the first
+     */
+    public PolygonIndex(double[] coordinates) {
+        if (coordinates.length < 6 || coordinates.length % 2 != 0) {
+            throw new IllegalArgumentException("A polygon needs at least three latitude, longitude pairs");
+        }
+        int corners = coordinates.length / 2;
+        double south = Double.POSITIVE_INFINITY, north = Double.NEGATIVE_INFINITY;
+        double west = Double.POSITIVE_INFINITY, east = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < corners; i++) {
+            south = Math.min(south, coordinates[2 * i]);
+            north = Math.max(north, coordinates[2 * i]);
+            west = Math.min(west, coordinates[2 * i + 1]);
+            east = Math.max(east, coordinates[2 * i + 1]);
+        }
+        minLatitude = south;
+        maxLatitude = north;
+        minLongitude = west;
+        maxLongitude = east;
+
+        // Edges along a line of latitude never cross an eastward ray, so they are left out
+        double[] latitudes = new double[corners];
+        double[] longitudes = new double[corners];
+        double[] slopes = new double[corners];
+        double[] low = new double[corners];
+        double[] high = new double[corners];
+        int edges = 0;
+        for (int i = 0; i < corners; i++) {
+            int next = (i + 1) % corners;
+            double latitude1 = coordinates[2 * i], longitude1 = coordinates[2 * i + 1];
+            double latitude2 = coordinates[2 * next], longitude2 = coordinates[2 * next + 1];
+            if (latitude1 != latitude2) {
+                latitudes[edges] = latitude1;
+                longitudes[edges] = longitude1;
+                slopes[edges] = (longitude2 - longitude1) / (latitude2 - latitude1);
+                low[edges] = Math.min(latitude1, latitude2);
+                high[edges] = Math.max(latitude1, latitude2);
+                edges++;
+            }
+        }
+        edgeLatitudes = Arrays.copyOf(latitudes, edges);
+        edgeLongitudes = Arrays.copyOf(longitudes, edges);
+        edgeSlopes = Arrays.copyOf(slopes, edges);
+        edgeLow = Arrays.copyOf(low, edges);
+        edgeHigh = Arrays.copyOf(high, edges);
+
+        bucketCount = Math.max(1, edges / EDGES_PER_BUCKET);
+        bucketsPerLatitude = north > south ? bucketCount / (north - south) : 0;
+        bucketOffsets = new int[bucketCount + 1];
+        for (int edge = 0; edge < edges; edge++) {
+            for (int bucket = bucket(edgeLow[edge]); bucket <= bucket(edgeHigh[edge]); bucket++) {
+                bucketOffsets[bucket + 1]++;
+            }
+        }
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            bucketOffsets[bucket + 1] += bucketOffsets[bucket];
+        }
+        int[] next = Arrays.copyOf(bucketOffsets, bucketCount);
+        bucketEdges = new int[bucketOffsets[bucketCount]];
+        for (int edge = 0; edge < edges; edge++) {
+            for (int bucket = bucket(edgeLow[edge]); bucket <= bucket(edgeHigh[edge]); bucket++) {
+                bucketEdges[next[bucket]++] = edge;
+            }
+        }
+    }
+
+    /**
+     * Creates the index of a polygon drawn as a list of corners
+     *
+     * @param corners corners of the polygon in order, the last joined back to the first
+     * @return the index
+     */
+    public static PolygonIndex of(List<Location> corners) {
+        double[] coordinates = new double[corners.size() * 2];
+        for (int i = 0; i < corners.size(); i++) {
+            coordinates[2 * i] = corners.get(i).getLatitude();
+            coordinates[2 * i + 1] = corners.get(i).getLongitude();
+        }
+        return new PolygonIndex(coordinates);
+    }
+
+    /**
+     * Tests a point. Points exactly on an edge may be on either side.
+     *
+     * @return true if the point is inside the polygon
+     */
+    public boolean contains(double latitude, double longitude) {
+        if (!(latitude >= minLatitude && latitude <= maxLatitude
+                && longitude >= minLongitude && longitude <= maxLongitude)) {
+            return false;
+        }
+        boolean inside = false;
+        int bucket = bucket(latitude);
+        for (int i = bucketOffsets[bucket]; i < bucketOffsets[bucket + 1]; i++) {
+            int edge = bucketEdges[i];
+            // Half open in latitude, so a ray through a corner counts one of its two edges
+            if (latitude >= edgeLow[edge] && latitude < edgeHigh[edge]
+                    && longitude < edgeLongitudes[edge] + (latitude - edgeLatitudes[edge]) * edgeSlopes[edge]) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    public boolean contains(Location location) {
+        return contains(location.getLatitude(), location.getLongitude());
+    }
+
+    /**
+     * Finds the rows whose location is inside the polygon. The rows in the bounding box come
+     * from the spatial index of the columns and are tested in parallel.
+     *
+     * @param columns rows to test
+     * @return the rows inside in increasing order
+     */
+    public int[] findRows(AssessmentColumns columns) {
+        double[] latitudes = columns.latitudeColumn();
+        double[] longitudes = columns.longitudeColumn();
+        int[] candidates = columns.getSpatialIndex().findWithin(minLatitude, minLongitude, maxLatitude, maxLongitude);
+        return IntStream.of(candidates).parallel()
+                .filter(row -> contains(latitudes[row], longitudes[row]))
+                .toArray();
+    }
+
+    public double getMinLatitude() {
+        return minLatitude;
+    }
+
+    public double getMaxLatitude() {
+        return maxLatitude;
+    }
+
+    public double getMinLongitude() {
+        return minLongitude;
+    }
+
+    public double getMaxLongitude() {
+        return maxLongitude;
+    }
+
+    private int bucket(double latitude) {
+        return Math.max(0, Math.min((int) ((latitude - minLatitude) * bucketsPerLatitude), bucketCount - 1));
+    }
+}
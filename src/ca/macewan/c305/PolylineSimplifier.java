@@ -0,0 +1,114 @@
+package ca.macewan.c305;
+
+import java.util.Arrays;
+
+/**
+ * PolylineSimplifier drops the points of a line that the eye can not tell from the line without
+ * them, using the Douglas-Peucker algorithm.
+ *
+ * The line is kept within a tolerance in metres of the original. Distances are measured on a
+ * flat projection around the first point, which is accurate to well under a metre over the
+ * size of a city.
+ */
+public final class PolylineSimplifier {
+    private static final double METRES_PER_DEGREE = SpatialIndex.EARTH_RADIUS_METRES * Math.PI / 180;
+
+    private PolylineSimplifier() {
+    }
+
+    /**
+     * Simplifies a line or a closed ring. A ring, whose last point repeats its first, is split
+     * at the point farthest from the first point so that it never collapses to a single segment.
+     *
+     * @param coordinates packed latitude, longitude pairs
+     * @param toleranceMetres largest distance of a dropped point from the simplified line
+     * @return the packed pairs of the points that are kept, in order, always including the
+     * first and last
+     */
+    public static double[] simplify(double[] coordinates, double toleranceMetres) {
+        int count = coordinates.length / 2;
+        if (count <= 2) {
+            return coordinates.clone();
+        }
+        // Projected to metres east and north of the first point
+        double metresPerLongitude = METRES_PER_DEGREE * Math.cos(Math.toRadians(coordinates[0]));
+        double[] x = new double[count];
+        double[] y = new double[count];
+        for (int i = 0; i < count; i++) {
+            x[i] = (coordinates[2 * i + 1] - coordinates[1]) * metresPerLongitude;
+            y[i] = (coordinates[2 * i] - coordinates[0]) * METRES_PER_DEGREE;
+        }
+
+        boolean[] keep = new boolean[count];
+        keep[0] = true;
+        keep[count - 1] = true;
+        if (x[0] == x[count - 1] && y[0] == y[count - 1]) {
+            int farthest = 0;
+            double farthestDistance = -1;
+            for (int i = 1; i < count - 1; i++) {
+                double distance = x[i] * x[i] + y[i] * y[i];
+                if (distance > farthestDistance) {
+                    farthest = i;
+                    farthestDistance = distance;
+                }
+            }
+            keep[farthest] = true;
+            simplify(x, y, 0, farthest, toleranceMetres, keep);
+            simplify(x, y, farthest, count - 1, toleranceMetres, keep);
+        } else {
+            simplify(x, y, 0, count - 1, toleranceMetres, keep);
+        }
+
+        double[] kept = new double[coordinates.length];
+        int values = 0;
+        for (int i = 0; i < count; i++) {
+            if (keep[i]) {
+                kept[values++] = coordinates[2 * i];
+                kept[values++] = coordinates[2 * i + 1];
+            }
+        }
+        return Arrays.copyOf(kept, values);
+    }
+
+    /**
+     * Marks the points to keep between two kept points. Spans left to do are held on a stack
+     * instead of recursing, so long lines can not overflow the call stack.
+     */
+    private static void simplify(double[] x, double[] y, int first, int last, double tolerance, boolean[] keep) {
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = first;
+        stack[top++] = last;
+        while (top > 0) {
+            int end = stack[--top];
+            int start = stack[--top];
+            int farthest = -1;
+            double farthestDistance = tolerance;
+            for (int i = start + 1; i < end; i++) {
+                double distance = distanceToSegment(x[i], y[i], x[start], y[start], x[end], y[end]);
+                if (distance > farthestDistance) {
+                    farthest = i;
+                    farthestDistance = distance;
+                }
+            }
+            if (farthest >= 0) {
+                keep[farthest] = true;
+                if (top + 4 > stack.length) {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                }
+                stack[top++] = start;
+                stack[top++] = farthest;
+                stack[top++] = farthest;
+                stack[top++] = end;
+            }
+        }
+    }
+
+    private static double distanceToSegment(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared == 0 ? 0 : Math.max(0, Math.min(1, ((px - ax) * dx + (py - ay) * dy) / lengthSquared));
+        return Math.hypot(px - ax - t * dx, py - ay - t * dy);
+    }
+}
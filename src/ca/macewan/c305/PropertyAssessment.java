@@ -46,6 +46,8 @@ public class PropertyAssessment implements Comparable {
 
     public String getClassification() { return this.classification; }
 
+    public String getGarage() { return this.garage; }
+
     public int getValue() {
         return this.value;
     }
@@ -7,6 +7,8 @@ import javafx.collections.ObservableList;
 import java.io.IOException;
 import java.text.NumberFormat;
 import java.util.*;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
 
 /**
  *  PropertyAssessments.java
@@ -22,19 +24,51 @@ import java.util.*;
  */
 
 public class PropertyAssessments {
+    // Number of columns in a property assessment .csv line
+    private static final int FIELD_COUNT = 12;
+
     // This one will return the descriptive statistics
-    public List<PropertyAssessment> propertyAssessmentsList = new ArrayList<>();
-    private int length;
-    private boolean sorted = true;
+    private List<PropertyAssessment> propertyAssessmentsList;
+    // Primitive copy of every row, the statistics and searches scan these columns
+    private AssessmentColumns columns;
+    private boolean keepObjects;
     private Set<String> assessClassSet = new HashSet<>();
 
     //shea addition
     private Set<String> neighborhoodSet = new TreeSet<>();
     private Set<String> wardSet = new TreeSet<>();
+    private StatisticsSummary statistics; // computed when first asked for after a change
 
     public PropertyAssessments() {
+        this(true, new AssessmentColumns());
+    }
+
+    private PropertyAssessments(boolean keepObjects, AssessmentColumns columns) {
         // The Collection is constructed with length 0
-        this.length = 0;
+        this.keepObjects = keepObjects;
+        this.columns = columns;
+        this.propertyAssessmentsList = keepObjects ? new ArrayList<>() : columns.asList();
+    }
+
+    /**
+     * Creates a collection that keeps only the primitive columns and no PropertyAssessment objects.
+     * It uses several times less memory; getPropertyAssessments() then returns a read only list
+     * that creates each assessment when it is asked for.
+     *
+     * @return an empty column-only collection
+     */
+    public static PropertyAssessments columnar() {
+        return new PropertyAssessments(false, new AssessmentColumns());
+    }
+
+    /**
+     * Creates an empty collection that stores its rows the same way as this one and shares its
+     * address dictionaries, so rows are copied between them without looking up any String
+     *
+     * @return an empty collection
+     */
+    PropertyAssessments emptyCopy() {
+        return new PropertyAssessments(this.keepObjects, this.columns.emptyCopy());
     }
 
     public List<PropertyAssessment> getPropertyAssessments() {
@@ -50,10 +84,11 @@ public class PropertyAssessments {
 
     public void addPropertyAssessment(PropertyAssessment propertyAssessment) {
         // Adds a property assessment to the collection
-        propertyAssessmentsList.add(propertyAssessment);
-        this.length++;          // Keep track of the length for simplicity
-        this.sorted = false;    // Keep track of whether the list has been sorted since something was added
-                                // so that sorting isn't done on an already sorted list
+        if (this.keepObjects) {
+            propertyAssessmentsList.add(propertyAssessment);
+        }
+        this.columns.add(propertyAssessment);
+        this.statistics = null;
         this.assessClassSet.add(propertyAssessment.getClassification());
 
         //shea addition
@@ -61,52 +96,231 @@ public class PropertyAssessments {
         this.wardSet.add(propertyAssessment.getNeighbourhood().getWard());
     }
 
+    /**
+     * Adds the property assessment of a tokenized .csv line. A column-only collection writes the
+     * fields straight into its columns as codes and numbers, so no PropertyAssessment, Address or
+     * Location is created for the row.
+     *
+     * @param tokens tokenizer positioned on the line
+     * @throws NumberFormatException if the line is not a readable property assessment
+     */
+    void addTokens(CsvTokenizer tokens) throws NumberFormatException {
+        if (this.keepObjects) {
+            addPropertyAssessment(parseTokensToAssessment(tokens));
+            return;
+        }
+        checkFieldCount(tokens);
+        int row = this.columns.add(tokens.getInt(0),
+                tokens.getCode(1, this.columns.suiteDictionary()),
+                tokens.getCode(2, this.columns.houseNumberDictionary()),
+                tokens.getCode(3, this.columns.streetNameDictionary()),
+                tokens.getInt(4),
+                tokens.getCode(5, AssessmentColumns.CLASSES),
+                tokens.isEmpty(6) ? 0 : tokens.getInt(6),
+                tokens.getCode(7, AssessmentColumns.NEIGHBOURHOODS),
+                tokens.getCode(8, AssessmentColumns.WARDS),
+                tokens.getCode(9, AssessmentColumns.GARAGES),
+                tokens.getDouble(10),
+                tokens.getDouble(11));
+        this.statistics = null;
+        this.assessClassSet.add(AssessmentColumns.CLASSES.getString(this.columns.getClassCode(row)));
+        this.neighborhoodSet.add(AssessmentColumns.NEIGHBOURHOODS.getString(this.columns.getNeighbourhoodCode(row)));
+        this.wardSet.add(AssessmentColumns.WARDS.getString(this.columns.getWardCode(row)));
+    }
+
+    /**
+     * Adds every property assessment of another collection, in order
+     *
+     * @param propertyAssessments collection to add
+     */
+    public void addPropertyAssessments(PropertyAssessments propertyAssessments) {
+        if (this.keepObjects) {
+            this.propertyAssessmentsList.addAll(propertyAssessments.propertyAssessmentsList);
+        }
+        this.columns.addAll(propertyAssessments.columns);
+        this.statistics = null;
+        this.assessClassSet.addAll(propertyAssessments.assessClassSet);
+        this.neighborhoodSet.addAll(propertyAssessments.neighborhoodSet);
+        this.wardSet.addAll(propertyAssessments.wardSet);
+    }
+
+    /**
+     * Adds one row of another collection without going through a PropertyAssessment.
+     * The class, neighbourhood and ward sets are left to the caller.
+     *
+     * @param source collection to copy from
+     * @param row row of the source collection
+     */
+    private void addRow(PropertyAssessments source, int row) {
+        if (this.keepObjects) {
+            this.propertyAssessmentsList.add(source.getRow(row));
+        }
+        this.columns.addRow(source.columns, row);
+        this.statistics = null;
+    }
+
+    private PropertyAssessment getRow(int row) {
+        return this.keepObjects ? this.propertyAssessmentsList.get(row) : this.columns.get(row);
+    }
+
+    /**
+     * Removes every property assessment from the collection
+     */
+    public void clear() {
+        if (this.keepObjects) {
+            this.propertyAssessmentsList.clear();
+        }
+        this.columns.clear();
+        this.statistics = null;
+        this.assessClassSet.clear();
+        this.neighborhoodSet.clear();
+        this.wardSet.clear();
+    }
+
+    /**
+     * Makes this collection hold the contents of another one, e.g. the result of a search.
+     * The contents are shared, so the other collection must not be changed afterwards.
+     *
+     * @param propertyAssessments collection to take the contents of
+     */
+    public void replaceWith(PropertyAssessments propertyAssessments) {
+        this.keepObjects = propertyAssessments.keepObjects;
+        this.propertyAssessmentsList = propertyAssessments.propertyAssessmentsList;
+        this.columns = propertyAssessments.columns;
+        this.assessClassSet = propertyAssessments.assessClassSet;
+        this.neighborhoodSet = propertyAssessments.neighborhoodSet;
+        this.wardSet = propertyAssessments.wardSet;
+        this.statistics = propertyAssessments.statistics;
+    }
+
+    /**
+     * Creates a collection that shares the current contents of this one. Later calls to
+     * replaceWith on this collection do not affect it, so it can be read by a background task
+     * while the user interface moves on to another subset.
+     *
+     * @return a collection with the same contents
+     */
+    PropertyAssessments snapshot() {
+        PropertyAssessments snapshot = emptyCopy();
+        snapshot.replaceWith(this);
+        return snapshot;
+    }
+
+    /**
+     * Returns the primitive columns of the collection, row i being the i-th property assessment
+     *
+     * @return the column store
+     */
+    public AssessmentColumns getColumns() {
+        return this.columns;
+    }
+
     //shea addition
     public PropertyAssessments getAssessmentsByWard(String ward) {
         // Returns ward-specific collection of property assessments
-        PropertyAssessments wardAssessments = new PropertyAssessments();
-
-        for (PropertyAssessment propertyAssessment : this.propertyAssessmentsList) {
-            // Compare each assessment's ward with the search word
-            String thisWard = propertyAssessment.getNeighbourhood().getWard().toUpperCase();
+        // Compare each ward in the dictionary with the search word once, then compare codes
+        return selectRows(findRowsByWard(ward));
+    }
 
-            if (thisWard.equals(ward.toUpperCase())) {
-                // Add a valid property assessment to the new collection
-                wardAssessments.addPropertyAssessment(propertyAssessment);
-            }
-        }
-        return wardAssessments;
+    int[] findRowsByWard(String ward) {
+        String search = ward.toUpperCase();
+        boolean[] matches = matchCodes(AssessmentColumns.WARDS, thisWard -> thisWard.toUpperCase().equals(search));
+        return this.columns.findWardRows(matches);
     }
 
     public PropertyAssessments getAssessmentsByNeighbourhood(String neighbourhood) {
         // Returns neighbourhood-specific collection of property assessments
-        PropertyAssessments neighbourhoodAssessments = new PropertyAssessments();
+        return selectRows(findRowsByNeighbourhood(neighbourhood));
+    }
 
-        for (PropertyAssessment propertyAssessment : this.propertyAssessmentsList) {
-            // Compare each assessment's neighbourhood with the search word
-            Neighbourhood nbhood = propertyAssessment.getNeighbourhood();
-            String thisNeighbourhood = nbhood.getNeighbourhood();
+    int[] findRowsByNeighbourhood(String neighbourhood) {
+        String search = neighbourhood.toUpperCase();
+        boolean[] matches = matchCodes(AssessmentColumns.NEIGHBOURHOODS, thisNeighbourhood -> thisNeighbourhood.toUpperCase().startsWith(search));
+        return this.columns.findNeighbourhoodRows(matches);
+    }
 
-            if (thisNeighbourhood.startsWith(neighbourhood.toUpperCase())) {
-                // Add a valid property assessment to the new collection
-                neighbourhoodAssessments.addPropertyAssessment(propertyAssessment);
-            }
+    public PropertyAssessments getAssessmentsByAddress(String inputAddress) {
+        return selectRows(findRowsByAddress(inputAddress));
+    }
 
+    int[] findRowsByAddress(String inputAddress) {
+        return this.columns.findAddress(inputAddress.toUpperCase());
+    }
+
+    /**
+     * Tests every String of a dictionary
+     *
+     * @param dictionary dictionary to test
+     * @param test test for a String
+     * @return array indexed by code that is true for the codes that pass the test
+     */
+    private static boolean[] matchCodes(StringDictionary dictionary, Predicate<String> test) {
+        boolean[] matches = new boolean[dictionary.size()];
+        for (int code = 0; code < matches.length; code++) {
+            matches[code] = test.test(dictionary.getString(code));
         }
-        return neighbourhoodAssessments;
+        return matches;
     }
 
-    public PropertyAssessments getAssessmentsByAddress(String inputAddress) {
-        PropertyAssessments addressAssessments = new PropertyAssessments();
+    /**
+     * Creates a collection of the given rows. The class, neighbourhood and ward sets are filled
+     * from the distinct codes of the rows instead of one String at a time.
+     *
+     * @param rows rows in increasing order
+     * @return the rows as a new collection
+     */
+    PropertyAssessments selectRows(int[] rows) {
+        PropertyAssessments selected = emptyCopy();
+        for (int row : rows) {
+            selected.addRow(this, row);
+        }
+        selected.addColumnSets();
+        return selected;
+    }
+
+    /**
+     * Creates a column-only collection holding the rows of a column store, e.g. one read back
+     * from a snapshot. The store becomes part of the collection and must not be changed
+     * afterwards.
+     *
+     * @param columns rows of the collection
+     * @return the collection
+     */
+    static PropertyAssessments ofColumns(AssessmentColumns columns) {
+        PropertyAssessments propertyAssessments = columnar();
+        propertyAssessments.columns = columns;
+        propertyAssessments.propertyAssessmentsList = columns.asList();
+        propertyAssessments.addColumnSets();
+        return propertyAssessments;
+    }
 
-        for (PropertyAssessment propertyAssessment : this.propertyAssessmentsList) {
-            String thisAddress = propertyAssessment.getAddress().toString();
+    /**
+     * Fills the class, neighbourhood and ward sets from the distinct codes of the rows
+     * instead of one String at a time
+     */
+    private void addColumnSets() {
+        boolean[] classes = new boolean[AssessmentColumns.CLASSES.size()];
+        boolean[] neighbourhoods = new boolean[AssessmentColumns.NEIGHBOURHOODS.size()];
+        boolean[] wards = new boolean[AssessmentColumns.WARDS.size()];
+        int[] classCodes = this.columns.classColumn();
+        int[] neighbourhoodCodes = this.columns.neighbourhoodColumn();
+        int[] wardCodes = this.columns.wardColumn();
+        for (int row = 0; row < this.columns.size(); row++) {
+            classes[classCodes[row]] = true;
+            neighbourhoods[neighbourhoodCodes[row]] = true;
+            wards[wardCodes[row]] = true;
+        }
+        addMatchingStrings(this.assessClassSet, AssessmentColumns.CLASSES, classes);
+        addMatchingStrings(this.neighborhoodSet, AssessmentColumns.NEIGHBOURHOODS, neighbourhoods);
+        addMatchingStrings(this.wardSet, AssessmentColumns.WARDS, wards);
+    }
 
-            if (thisAddress.contains(inputAddress.toUpperCase())) {
-                addressAssessments.addPropertyAssessment(propertyAssessment);
+    private static void addMatchingStrings(Set<String> set, StringDictionary dictionary, boolean[] matches) {
+        for (int code = 0; code < matches.length; code++) {
+            if (matches[code]) {
+                set.add(dictionary.getString(code));
             }
         }
-        return addressAssessments;
     }
 
     public Set<String> getClassSet() {
@@ -125,16 +339,15 @@ public class PropertyAssessments {
     public String[] getSortedWardList() {
         Set<String> wardSetCopy = getWardSet();
         Set<Integer> toConvert = new TreeSet<>();
-        Iterator itr = wardSetCopy.iterator();
-        itr.next();
-        //Convert string set to integer set for sorting
-        while (itr.hasNext()) {
-            String s = (String) itr.next();
+        //Convert string set to integer set for sorting, skipping blank wards
+        for (String s : wardSetCopy) {
             String[] arr = s.split(" ");
-            toConvert.add(Integer.parseInt(arr[1]));
+            if (arr.length == 2 && !arr[1].isEmpty() && arr[1].chars().allMatch(Character::isDigit)) {
+                toConvert.add(Integer.parseInt(arr[1]));
+            }
         }
         //convert to sorted string array
-        itr = toConvert.iterator();
+        Iterator<Integer> itr = toConvert.iterator();
         String[] toRet = new String[toConvert.size()];
         for (int i = 0; i < toRet.length; i++) {
             toRet[i] = "Ward " + itr.next();
@@ -143,134 +356,275 @@ public class PropertyAssessments {
     }
 
     public PropertyAssessments getAssessmentsByClass(String classInput) {
-        PropertyAssessments classAssessments = new PropertyAssessments();
-
-        for (PropertyAssessment propertyAssessment : this.propertyAssessmentsList) {
-            String propertyClass = (propertyAssessment.getClassification()).toUpperCase();
+        return selectRows(findRowsByClass(classInput));
+    }
 
-            if (propertyClass.equals(classInput.toUpperCase() )) {
-                classAssessments.addPropertyAssessment(propertyAssessment);
-            }
-        }
-        return classAssessments;
+    int[] findRowsByClass(String classInput) {
+        String search = classInput.toUpperCase();
+        boolean[] matches = matchCodes(AssessmentColumns.CLASSES, propertyClass -> propertyClass.toUpperCase().equals(search));
+        return this.columns.findClassRows(matches);
     }
 
     public PropertyAssessments getAssessmentsByAccount(String accountNum) {
-        PropertyAssessments assessmentAccounts = new PropertyAssessments();
+        return selectRows(findRowsByAccount(accountNum));
+    }
 
-        for (PropertyAssessment propertyAssessment : this.propertyAssessmentsList) {
-            if (Integer.toString(propertyAssessment.getAccountNum()).startsWith(accountNum)){
-                assessmentAccounts.addPropertyAssessment(propertyAssessment);
-            }
+    int[] findRowsByAccount(String accountNum) {
+        // The prefix index finds the matching rows without looking at the others
+        return this.columns.findAccountPrefix(accountNum);
+    }
+
+    /**
+     * Returns the property assessment with the matching account number, using the account index
+     *
+     * @param accountNum account number to look up
+     * @return the property assessment, or null if no assessment has the account number
+     */
+    public PropertyAssessment getPropertyAssessment (int accountNum) {
+        int row = this.columns.findAccount(accountNum);
+        if (row == IntHashIndex.NOT_FOUND) {
+            return null;
         }
-        return assessmentAccounts;
+        return getRow(row);
     }
 
-    private void sortAssessments() {
-        //if (sorted)
-            // If already sorted, don't do anything
-          //  return;
+    /**
+     * Returns the assessments whose location is inside a box, edges included
+     *
+     * @param south southern edge of the box, in degrees of latitude
+     * @param west western edge of the box, in degrees of longitude
+     * @param north northern edge of the box
+     * @param east eastern edge of the box
+     * @return the assessments as a new collection
+     */
+    public PropertyAssessments getAssessmentsWithin(double south, double west, double north, double east) {
+        return selectRows(findRowsWithin(south, west, north, east));
+    }
 
-        //Sort the collection and set sorted flag to true if not already sorted
+    int[] findRowsWithin(double south, double west, double north, double east) {
+        return this.columns.getSpatialIndex().findWithin(south, west, north, east);
+    }
 
-        Collections.sort(this.propertyAssessmentsList);
-        this.sorted = true;
+    /**
+     * Returns the assessments within a distance of a location
+     *
+     * @param centre the location
+     * @param metres largest distance from the location
+     * @return the assessments as a new collection
+     */
+    public PropertyAssessments getAssessmentsWithinRadius(Location centre, double metres) {
+        return selectRows(findRowsWithinRadius(centre, metres));
     }
 
-    public PropertyAssessment getPropertyAssessment (int accountNum) throws ClassNotFoundException {
-        // Return the property assessment with the matching account number
+    int[] findRowsWithinRadius(Location centre, double metres) {
+        return this.columns.getSpatialIndex().findWithinRadius(centre, metres);
+    }
 
-        for (PropertyAssessment propertyAssessment : this.propertyAssessmentsList) {
-            if (propertyAssessment.getAccountNum() == accountNum) {
-                return propertyAssessment;
-            }
+    /**
+     * Returns the assessments whose location is inside a polygon, e.g. a ward boundary or an
+     * area drawn on the map
+     *
+     * @param polygon the polygon
+     * @return the assessments as a new collection
+     */
+    public PropertyAssessments getAssessmentsInside(PolygonIndex polygon) {
+        return selectRows(findRowsInside(polygon));
+    }
+
+    int[] findRowsInside(PolygonIndex polygon) {
+        return polygon.findRows(this.columns);
+    }
+
+    /**
+     * Returns the assessments closest to a location
+     *
+     * @param location the location
+     * @param k number of assessments to return
+     * @return up to k assessments, nearest first
+     */
+    public List<PropertyAssessment> getNearest(Location location, int k) {
+        List<PropertyAssessment> nearest = new ArrayList<>();
+        for (int row : this.columns.getSpatialIndex().nearestK(location, k)) {
+            nearest.add(getRow(row));
         }
-        throw new ClassNotFoundException();
+        return nearest;
     }
 
-    public int getMean() {
-        long sum = 0;
-        for (PropertyAssessment propertyAssessment : this.propertyAssessmentsList) {
-            sum = sum + propertyAssessment.getValue();
+    /**
+     * Returns every descriptive statistic of the assessed values. The count, sum, minimum,
+     * maximum, mean and variance are kept up to date as assessments are added, so only the
+     * quantiles are computed, once per change of the collection.
+     *
+     * @return the statistics of the collection
+     */
+    public StatisticsSummary getStatistics() {
+        StatisticsSummary summary = this.statistics;
+        if (summary == null) {
+            summary = StatisticsSummary.of(this.columns.getValueStatistics(),
+                    this.columns.valueColumn(), this.columns.size());
+            this.statistics = summary;
         }
-        return Math.round((int)((double)sum / this.propertyAssessmentsList.size()));
+        return summary;
+    }
+
+    public int getMean() {
+        return (int) this.columns.getValueStatistics().getMean();
     }
 
     public long getMin() {
-        sortAssessments();
-        return this.propertyAssessmentsList.get(0).getValue();
+        checkNotEmpty();
+        return this.columns.getValueStatistics().getMin();
     }
 
     public long getMedian() {
-        sortAssessments();
-        if (this.propertyAssessmentsList.size() % 2 == 0){
-            long avg = (this.propertyAssessmentsList.get(this.propertyAssessmentsList.size()/2)).getValue() +
-                    (this.propertyAssessmentsList.get(this.propertyAssessmentsList.size()/2+1)).getValue();
-            return avg/2;
-        }
-        return (this.propertyAssessmentsList.get(this.propertyAssessmentsList.size()/2)).getValue();
+        return getStatistics().getMedian();
     }
 
-    public int getStDev() {
-        double sum = 0;
-        double mean = this.getMean();
-        for (PropertyAssessment propertyAssessment : this.propertyAssessmentsList) {
-            double val = propertyAssessment.getValue() - mean;
-            sum = sum + val * val;
-        }
+    /**
+     * Computes a quantile of the assessed values without changing the order of the collection
+     *
+     * @param quantile quantile from 0 to 1, e.g. 0.25 for the first quartile
+     * @return the value at the quantile, interpolated between the two nearest values
+     */
+    public double getQuantile(double quantile) {
+        return Quantiles.quantile(this.columns.valueColumn(), this.columns.size(), quantile);
+    }
 
-        double result = sum / (double) this.propertyAssessmentsList.size();
-        return (int) Math.sqrt(result);
+    /**
+     * Computes a percentile of the assessed values, e.g. 90 for the 90th percentile
+     *
+     * @param percentile percentile from 0 to 100
+     * @return the value at the percentile
+     */
+    public double getPercentile(double percentile) {
+        return getQuantile(percentile / 100);
+    }
+
+    /**
+     * Computes several quantiles of the assessed values with one copy of the values
+     *
+     * @param quantiles quantiles from 0 to 1
+     * @return the value at each quantile, in the order they were asked for
+     */
+    public double[] getQuantiles(double... quantiles) {
+        return Quantiles.of(this.columns.valueColumn(), this.columns.size(), quantiles);
+    }
+
+    public int getStDev() {
+        return (int) Math.sqrt(this.columns.getValueStatistics().getVariance());
     }
 
     public long getMax() {
-        sortAssessments();
-        return (this.propertyAssessmentsList.get(this.propertyAssessmentsList.size() - 1)).getValue();
+        checkNotEmpty();
+        return this.columns.getValueStatistics().getMax();
     }
 
     public long getRange() {
         return this.getMax() - this.getMin();
     }
 
+    /**
+     * Counts the assessed values into bins
+     *
+     * @param edges edges of the bins, not decreasing; bin i is from edges[i] up to edges[i + 1]
+     * @return the histogram of the values
+     */
+    public Histogram getValueHistogram(double... edges) {
+        return Histogram.withEdges(this.columns.valueColumn(), this.columns.size(), edges);
+    }
+
+    /**
+     * Groups the assessed values by neighbourhood name. The statistics of each group are kept
+     * up to date as assessments are added, so this does not look at the rows.
+     *
+     * @return the statistics of each neighbourhood that has assessments, sorted by name
+     */
+    public SortedMap<String, StatisticsAccumulator> getStatisticsByNeighbourhood() {
+        return groupStatistics(AssessmentColumns.NEIGHBOURHOODS, this.columns::getNeighbourhoodStatistics);
+    }
+
+    /**
+     * Groups the assessed values by ward
+     *
+     * @return the statistics of each ward that has assessments, sorted by name
+     */
+    public SortedMap<String, StatisticsAccumulator> getStatisticsByWard() {
+        return groupStatistics(AssessmentColumns.WARDS, this.columns::getWardStatistics);
+    }
+
+    /**
+     * Groups the assessed values by assessment class
+     *
+     * @return the statistics of each class that has assessments, sorted by name
+     */
+    public SortedMap<String, StatisticsAccumulator> getStatisticsByClass() {
+        return groupStatistics(AssessmentColumns.CLASSES, this.columns::getClassStatistics);
+    }
+
+    private static SortedMap<String, StatisticsAccumulator> groupStatistics(StringDictionary dictionary,
+                                                                           IntFunction<StatisticsAccumulator> statisticsOfCode) {
+        SortedMap<String, StatisticsAccumulator> groups = new TreeMap<>();
+        for (int code = 0; code < dictionary.size(); code++) {
+            StatisticsAccumulator statistics = statisticsOfCode.apply(code);
+            if (statistics.getCount() > 0) {
+                groups.put(dictionary.getString(code), statistics);
+            }
+        }
+        return groups;
+    }
+
     public int getPopulation() {
-        return this.propertyAssessmentsList.size();
+        return this.columns.size();
+    }
+
+    private void checkNotEmpty() {
+        if (this.columns.size() == 0) {
+            throw new IndexOutOfBoundsException("The collection is empty");
+        }
     }
 
     public PropertyAssessment parseLineToAssessment(String line) throws NumberFormatException {
-        String[] tokens = line.split(",");
+        return parseTokensToAssessment(new CsvTokenizer().reset(line));
+    }
+
+    /**
+     * Creates a property assessment from a tokenized .csv line.
+     * Text fields are interned in the column dictionaries of this collection, so a String is only
+     * created the first time a value is seen.
+     *
+     * @param tokens tokenizer positioned on the line
+     * @return the property assessment in the line
+     * @throws NumberFormatException if the line is not a readable property assessment
+     */
+    public PropertyAssessment parseTokensToAssessment(CsvTokenizer tokens) throws NumberFormatException {
+        checkFieldCount(tokens);
 
         // get account number
-        int accountNum = Integer.parseInt(tokens[0]);
+        int accountNum = tokens.getInt(0);
 
-        // get address
-        String suite = "";
-        if (!(tokens[1].length() < 1)) {
-            suite = tokens[1];
-        }
-        String houseNum = "";
-        if (!(tokens[2].length() < 1)) {
-            houseNum = tokens[2];
-        }
-        String streetName = tokens[3];
+        // get address, repeated values share one String
+        String suite = tokens.getString(1, this.columns.suiteDictionary());
+        String houseNum = tokens.getString(2, this.columns.houseNumberDictionary());
+        String streetName = tokens.getString(3, this.columns.streetNameDictionary());
         Address address = new Address(suite, houseNum, streetName);
 
         // get value and classification
-        int assessedValue = Integer.parseInt(tokens[4]);
-        String classification = tokens[5];
+        int assessedValue = tokens.getInt(4);
+        String classification = tokens.getString(5, AssessmentColumns.CLASSES);
 
-        // get neighbourhood
+        // get neighbourhood, shared by every row in it
         int nbhoodID = 0;
-        if (!(tokens[6].length() < 1)) {
-            nbhoodID = Integer.parseInt(tokens[6]);
+        if (!tokens.isEmpty(6)) {
+            nbhoodID = tokens.getInt(6);
         }
-        String nbhood = tokens[7];
-        String ward = tokens[8];
-        String garage = tokens[9];
-        Neighbourhood neighbourhood = new Neighbourhood(nbhoodID, nbhood, ward);
+        String nbhood = tokens.getString(7, AssessmentColumns.NEIGHBOURHOODS);
+        String ward = tokens.getString(8, AssessmentColumns.WARDS);
+        String garage = tokens.getString(9, AssessmentColumns.GARAGES);
+        Neighbourhood neighbourhood = Neighbourhood.of(nbhoodID, nbhood, ward);
 
         // get location
-        double latitude = Double.parseDouble(tokens[10]);
-        double longitude = Double.parseDouble(tokens[11]);
+        double latitude = tokens.getDouble(10);
+        double longitude = tokens.getDouble(11);
         Location location = new Location(latitude, longitude);
 
         // create propertyAssessment object with values
@@ -278,19 +632,26 @@ public class PropertyAssessments {
                 assessedValue, classification, neighbourhood, garage, location);
     }
 
+    private static void checkFieldCount(CsvTokenizer tokens) throws NumberFormatException {
+        if (tokens.getFieldCount() < FIELD_COUNT) {
+            throw new NumberFormatException("Expected " + FIELD_COUNT + " fields but found " + tokens.getFieldCount());
+        }
+    }
+
     public String toString() {
         NumberFormat moneyMaker = NumberFormat.getCurrencyInstance();
         // Printing the collection produces the following data
         int N = this.getPopulation();
         String str = "";
         if (N > 0) {
+            StatisticsSummary statistics = this.getStatistics();
             str = str + "N = " + N;
-            str = str + "\nMin = " + moneyMaker.format(this.getMin());
-            str = str + "\nMax = " + moneyMaker.format(this.getMax());
-            str = str + "\nRange = " + moneyMaker.format(this.getRange());
-            str = str + "\nMean = " + moneyMaker.format(this.getMean());
-            str = str + "\nStandard Deviation = " + moneyMaker.format(this.getStDev());
-            str = str + "\nMedian = " + moneyMaker.format(this.getMedian());
+            str = str + "\nMin = " + moneyMaker.format(statistics.getMin());
+            str = str + "\nMax = " + moneyMaker.format(statistics.getMax());
+            str = str + "\nRange = " + moneyMaker.format(statistics.getRange());
+            str = str + "\nMean = " + moneyMaker.format((int) statistics.getMean());
+            str = str + "\nStandard Deviation = " + moneyMaker.format((int) statistics.getStDev());
+            str = str + "\nMedian = " + moneyMaker.format(statistics.getMedian());
         } else {
             str = str + "Descriptive Statistics not available\n";
         }
@@ -14,10 +14,6 @@ package ca.macewan.c305;
  */
 
 import javafx.application.Application;
-import javafx.application.Platform;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
-import javafx.concurrent.Task;
 import javafx.event.ActionEvent;
 import javafx.event.Event;
 import javafx.event.EventHandler;
@@ -35,23 +31,23 @@ import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
 import java.io.File;
-import java.io.IOException;
-import java.nio.file.Paths;
 import java.text.NumberFormat;
-import java.util.Scanner;
 
 public class PropertyTable extends Application {
 
     private TableView<PropertyAssessment> table;
-    private ObservableList<PropertyAssessment> properties;
-    private PropertyAssessments propertyAssessments;
+    private final AssessmentRowList properties = new AssessmentRowList();
+    private DatasetSession session;
     private String filename = "Property_Assessment_Data__Current_Calendar_Year_.csv";
     WebView webView = new WebView();
     WebEngine webEngine = webView.getEngine();
     SideControls searchBox;
+    private ProgressBar loadProgress;
+    private Label loadStatus;
+    private Button openFileButton;
 
     Stage stage;
-    static DataTab vis;
+    DataTab vis;
     MapTab map;
 
     public static void main(String[] args) {
@@ -60,11 +56,10 @@ public class PropertyTable extends Application {
 
     @Override
     public void start(Stage primaryStage) throws Exception {
-        propertyAssessments = new PropertyAssessments();
+        session = new DatasetSession();
 
         this.stage = primaryStage;
         primaryStage.setTitle("Property Assessments");
-        makePropertyAssessments(filename);
 
         VBox tableBox = new VBox(10);
 
@@ -73,7 +68,7 @@ public class PropertyTable extends Application {
 
         configureTable();
 
-        searchBox = new SideControls(propertyAssessments, webEngine, properties);
+        searchBox = new SideControls(session, webEngine);
 
         borderPane.setCenter(tableBox);
         borderPane.setLeft(searchBox.getPanel());
@@ -133,7 +128,9 @@ public class PropertyTable extends Application {
                 BorderStrokeStyle.SOLID, new CornerRadii(4), BorderWidths.DEFAULT)));
         /* File open button in the following hBox */
         HBox fileBox = makeFileBox();
-        tableHeader.getChildren().addAll(tableLabel, spacer, switchTheme, fileBox);
+        loadProgress = new ProgressBar(0);
+        loadStatus = new Label();
+        tableHeader.getChildren().addAll(tableLabel, loadProgress, loadStatus, spacer, switchTheme, fileBox);
 
 
         final Label searchLabel =  new Label("Find Property Assessment");
@@ -142,30 +139,30 @@ public class PropertyTable extends Application {
         tableBox.setVgrow(table, Priority.ALWAYS);
         tableBox.getChildren().addAll(tableHeader, table /* hBox */ );
 
-        Task task = new Task<Void>() {
-            @Override public Void call() {
-                Platform.runLater(new Runnable() {
-                    @Override public void run() {
-                        try {
-                            tab3.setContent(vis.start(propertyAssessments, webView, webEngine, properties));
-                        } catch (IOException e) {
-                            e.printStackTrace();
-                        }
-                    }
-                });
-                return null;
-            }
-        };
-        tab2.setContent(map.start(propertyAssessments, webView, webEngine, properties));
+        // The other tabs follow the session, so they are built now and fill in once data is loaded
+        tab2.setContent(map.start(session, webView, webEngine));
+        tab3.setContent(vis.start(session, webView, webEngine));
+
+        // Show the window right away and fill in the data once it is loaded
         primaryStage.show();
-        new Thread(task).start();
+        loadDataset(filename);
     }
 
     private void configureTable() {
         table = new TableView<>();
 
-        properties = FXCollections.observableArrayList(propertyAssessments.getPropertyAssessments());
+        // The table reads the rows of the subset as it draws them instead of holding a copy
+        properties.setAssessments(session.getAssessments());
         table.setItems(properties);
+        table.setSortPolicy(sortedTable -> {
+            properties.sort(sortedTable.getSortOrder().isEmpty() ? null : sortedTable.getComparator());
+            return true;
+        });
+        // one change event for the table whenever a tab changes the subset
+        session.addListener(datasetChanged -> {
+            properties.setAssessments(session.getAssessments());
+            table.sort();
+        });
 
         TableColumn<PropertyAssessment, Integer> acctNumCol = new TableColumn<>("Account Number");
         acctNumCol.setCellValueFactory(new PropertyValueFactory<>("accountNum"));
@@ -207,36 +204,44 @@ public class PropertyTable extends Application {
         table.getColumns().setAll(acctNumCol, addressCol, assessedValCol, classCol, nbhoodCol, latCol, longCol);
     }
 
-    private void makePropertyAssessments(String filename) throws IOException, NumberFormatException {
-        Scanner file = new Scanner(Paths.get(filename));
-        int n = getLength(file);
-
-        // re-read file as scanner needs to point at beginning again
-        file = new Scanner(Paths.get(filename));
-        if (file.hasNextLine()) { // Skip header
-            file.nextLine();
-        }
-
-        for (int i = 0 ; i < n && file.hasNextLine() ; i++){
-            // iterate through each line and make a Property Assessment from each
-            String currentLine = file.nextLine();
-            PropertyAssessment propertyAssessment = propertyAssessments.parseLineToAssessment(currentLine);
+    /**
+     * Loads a .csv file on a background thread, showing the progress in the table header.
+     * The new data replaces the dataset of the session only once the whole file has been read,
+     * so searches on the current data are not disturbed.
+     *
+     * @param filename path of the .csv file
+     */
+    private void loadDataset(String filename) {
+        AssessmentLoadTask task = new AssessmentLoadTask(filename);
+        loadProgress.progressProperty().bind(task.progressProperty());
+        loadStatus.textProperty().bind(task.messageProperty());
+        loadProgress.setVisible(true);
+        openFileButton.setDisable(true);
+
+        task.setOnSucceeded(event -> {
+            finishLoad();
+            session.setDataset(task.getValue());
+        });
+        task.setOnFailed(event -> {
+            finishLoad();
+            task.getException().printStackTrace();
+            String err = "The file " + new File(filename).getName() + " does not contain property assessment data in a readable format";
+            System.out.println(err);
+
+            // Display alert dialog if something went wrong in opening the file
+            PopUp.Error(err);
+        });
 
-            // add propertyAssessment to List
-            propertyAssessments.addPropertyAssessment(propertyAssessment);
-        }
+        Thread thread = new Thread(task, "Load " + filename);
+        thread.setDaemon(true);
+        thread.start();
     }
 
-    private static int getLength(Scanner file){
-        int n = 0;
-        if (file.hasNextLine()) {
-            file.nextLine();
-        }
-        while (file.hasNextLine()) {
-            file.nextLine();
-            n++;
-        }
-        return n;
+    private void finishLoad() {
+        loadProgress.progressProperty().unbind();
+        loadStatus.textProperty().unbind();
+        loadProgress.setVisible(false);
+        openFileButton.setDisable(false);
     }
 
     /**
@@ -247,28 +252,17 @@ public class PropertyTable extends Application {
      */
     private HBox makeFileBox() {
         FileChooser fileChooser = new FileChooser();
-        final Button openFileButton = new Button("Load Custom Dataset");
+        openFileButton = new Button("Load Custom Dataset");
         HBox hBox = new HBox(10);
         openFileButton.setOnAction(
                 e -> {
                     // let the user choose the file, get the file path.
                     File file = fileChooser.showOpenDialog(stage); //hBox.getScene().getWindow())
-                    if (file != null)
-                        filename = file.getPath();
-                    try {
-                        // update the main propertyAssessments collection class
-                        propertyAssessments.propertyAssessmentsList.clear();
-                        makePropertyAssessments(filename);
-                        searchBox.updateMasterList();
-
-                    } catch (Exception ex) {
-                        //ex.printStackTrace();
-                        String err = "The file " + file.getName() + " does not contain property assessment data in a readable format";
-                        System.out.println(err);
-
-                        // Display alert dialog if something went wrong in opening the file
-                        PopUp.Error(err);
-                    }
+                    if (file == null)
+                        return;
+                    filename = file.getPath();
+                    // replace the dataset of every tab in the background
+                    loadDataset(filename);
                 });
         hBox.getChildren().addAll(openFileButton);
 
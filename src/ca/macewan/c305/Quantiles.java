@@ -0,0 +1,84 @@
+package ca.macewan.c305;
+
+import java.util.Arrays;
+
+/**
+ * Quantiles computes quantiles of assessed values by selection on a copy, in linear time and
+ * without changing the order of the values.
+ *
+ * A quantile q of n values is read at position (n - 1) * q of the sorted values, interpolating
+ * between the two nearest elements, so the 0.5 quantile of an even count is the average of the
+ * two middle elements.
+ */
+public final class Quantiles {
+    /**
+     * The quantiles kept in a StatisticsSummary: p10, p25, median, p75, p90 and p99
+     */
+    public static final double[] STANDARD = {0.10, 0.25, 0.50, 0.75, 0.90, 0.99};
+
+    private Quantiles() {
+    }
+
+    /**
+     * Computes several quantiles of the first size elements of an array, which is not changed
+     *
+     * @param values values to read
+     * @param size number of values
+     * @param quantiles quantiles to compute, each from 0 to 1, in any order
+     * @return the value of each quantile, in the order they were asked for
+     * @throws IndexOutOfBoundsException if size is 0
+     * @throws IllegalArgumentException if a quantile is outside 0 to 1
+     */
+    public static double[] of(int[] values, int size, double... quantiles) {
+        if (size == 0) {
+            throw new IndexOutOfBoundsException("No quantiles of 0 values");
+        }
+        Integer[] order = new Integer[quantiles.length];
+        for (int i = 0; i < quantiles.length; i++) {
+            if (!(quantiles[i] >= 0 && quantiles[i] <= 1)) {
+                throw new IllegalArgumentException("Quantile " + quantiles[i] + " is not between 0 and 1");
+            }
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(quantiles[a], quantiles[b]));
+
+        // Select in increasing order; every selection leaves only larger elements after it,
+        // so the next one only has to look at the rest of the array
+        int[] copy = Arrays.copyOf(values, size);
+        double[] result = new double[quantiles.length];
+        int from = 0;
+        int selected = -1;
+        for (int i : order) {
+            double position = (size - 1) * quantiles[i];
+            int lower = (int) position;
+            if (lower > selected) {
+                IntSelection.select(copy, from, size, lower);
+                from = lower;
+                selected = lower;
+            }
+            double value = copy[lower];
+            if (position > lower) {
+                if (lower + 1 > selected) {
+                    IntSelection.select(copy, lower + 1, size, lower + 1);
+                    from = lower + 1;
+                    selected = lower + 1;
+                }
+                value += (position - lower) * ((double) copy[lower + 1] - copy[lower]);
+            }
+            result[i] = value;
+        }
+        return result;
+    }
+
+    /**
+     * Computes one quantile of the first size elements of an array, which is not changed
+     *
+     * @param values values to read
+     * @param size number of values
+     * @param quantile quantile from 0 to 1, e.g. 0.9 for the 90th percentile
+     * @return the value of the quantile
+     */
+    public static double quantile(int[] values, int size, double quantile) {
+        return of(values, size, new double[] {quantile})[0];
+    }
+}
@@ -0,0 +1,331 @@
+package ca.macewan.c305;
+
+import java.util.Arrays;
+
+/**
+ * RowBitmap is an immutable compressed set of row numbers, in the style of a Roaring bitmap.
+ *
+ * Rows are split into chunks of 65536 by their upper 16 bits. A chunk with few rows keeps them
+ * as a sorted array of their lower 16 bits, a chunk with many rows keeps a 65536 bit bitmap, so
+ * both sparse search results and results covering most of the data stay small, and AND/OR work
+ * a chunk at a time instead of a row at a time.
+ */
+public final class RowBitmap {
+    // A chunk with more rows than this is stored as a bitmap, which is then the smaller of the two
+    private static final int ARRAY_LIMIT = 4096;
+    private static final int BITMAP_WORDS = 1024;
+    private static final RowBitmap EMPTY = new RowBitmap(new int[0], new Object[0], 0);
+
+    private final int[] keys;          // upper 16 bits of the rows of each chunk, increasing
+    private final Object[] containers; // char[] of sorted lower bits, or long[BITMAP_WORDS]
+    private final int cardinality;
+
+    private RowBitmap(int[] keys, Object[] containers, int cardinality) {
+        this.keys = keys;
+        this.containers = containers;
+        this.cardinality = cardinality;
+    }
+
+    public static RowBitmap empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Creates a bitmap of the given rows
+     *
+     * @param rows rows in increasing order, none negative
+     * @return the bitmap
+     */
+    public static RowBitmap of(int[] rows) {
+        int chunkCount = 0;
+        for (int i = 0; i < rows.length; i++) {
+            if (i == 0 || rows[i] >>> 16 != rows[i - 1] >>> 16) {
+                chunkCount++;
+            }
+        }
+        int[] keys = new int[chunkCount];
+        Object[] containers = new Object[chunkCount];
+        int start = 0;
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            int key = rows[start] >>> 16;
+            int end = start;
+            while (end < rows.length && rows[end] >>> 16 == key) {
+                end++;
+            }
+            keys[chunk] = key;
+            containers[chunk] = end - start > ARRAY_LIMIT ? toBitmap(rows, start, end) : toArray(rows, start, end);
+            start = end;
+        }
+        return new RowBitmap(keys, containers, rows.length);
+    }
+
+    /**
+     * Creates a bitmap of every row from 0 up to, but not including, size
+     *
+     * @param size number of rows
+     * @return the bitmap
+     */
+    public static RowBitmap range(int size) {
+        int chunkCount = (size + 0xFFFF) >>> 16;
+        int[] keys = new int[chunkCount];
+        Object[] containers = new Object[chunkCount];
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            int rowsInChunk = Math.min(size - (chunk << 16), 1 << 16);
+            keys[chunk] = chunk;
+            if (rowsInChunk > ARRAY_LIMIT) {
+                long[] bits = new long[BITMAP_WORDS];
+                Arrays.fill(bits, 0, rowsInChunk >>> 6, -1L);
+                if ((rowsInChunk & 63) != 0) {
+                    bits[rowsInChunk >>> 6] = (1L << (rowsInChunk & 63)) - 1;
+                }
+                containers[chunk] = bits;
+            } else {
+                char[] low = new char[rowsInChunk];
+                for (int i = 0; i < rowsInChunk; i++) {
+                    low[i] = (char) i;
+                }
+                containers[chunk] = low;
+            }
+        }
+        return new RowBitmap(keys, containers, Math.max(size, 0));
+    }
+
+    public int cardinality() {
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    public boolean contains(int row) {
+        int chunk = Arrays.binarySearch(keys, row >>> 16);
+        if (chunk < 0) {
+            return false;
+        }
+        Object container = containers[chunk];
+        if (container instanceof long[]) {
+            return (((long[]) container)[(row & 0xFFFF) >>> 6] & (1L << row)) != 0;
+        }
+        return Arrays.binarySearch((char[]) container, (char) row) >= 0;
+    }
+
+    /**
+     * Returns the rows that are in both bitmaps
+     *
+     * @param other bitmap to intersect with
+     * @return the intersection
+     */
+    public RowBitmap and(RowBitmap other) {
+        int[] newKeys = new int[Math.min(keys.length, other.keys.length)];
+        Object[] newContainers = new Object[newKeys.length];
+        int count = 0;
+        int total = 0;
+        int i = 0;
+        int j = 0;
+        while (i < keys.length && j < other.keys.length) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                Object container = and(containers[i], other.containers[j]);
+                int size = containerSize(container);
+                if (size > 0) {
+                    newKeys[count] = keys[i];
+                    newContainers[count++] = container;
+                    total += size;
+                }
+                i++;
+                j++;
+            }
+        }
+        return new RowBitmap(Arrays.copyOf(newKeys, count), Arrays.copyOf(newContainers, count), total);
+    }
+
+    /**
+     * Returns the rows that are in either bitmap
+     *
+     * @param other bitmap to unite with
+     * @return the union
+     */
+    public RowBitmap or(RowBitmap other) {
+        int[] newKeys = new int[keys.length + other.keys.length];
+        Object[] newContainers = new Object[newKeys.length];
+        int count = 0;
+        int total = 0;
+        int i = 0;
+        int j = 0;
+        while (i < keys.length || j < other.keys.length) {
+            Object container;
+            if (j == other.keys.length || (i < keys.length && keys[i] < other.keys[j])) {
+                newKeys[count] = keys[i];
+                container = containers[i++];
+            } else if (i == keys.length || keys[i] > other.keys[j]) {
+                newKeys[count] = other.keys[j];
+                container = other.containers[j++];
+            } else {
+                newKeys[count] = keys[i];
+                container = or(containers[i++], other.containers[j++]);
+            }
+            newContainers[count++] = container;
+            total += containerSize(container);
+        }
+        return new RowBitmap(Arrays.copyOf(newKeys, count), Arrays.copyOf(newContainers, count), total);
+    }
+
+    /**
+     * Lists the rows of the bitmap
+     *
+     * @return the rows in increasing order
+     */
+    public int[] toArray() {
+        int[] rows = new int[cardinality];
+        int count = 0;
+        for (int chunk = 0; chunk < keys.length; chunk++) {
+            int high = keys[chunk] << 16;
+            Object container = containers[chunk];
+            if (container instanceof long[]) {
+                long[] bits = (long[]) container;
+                for (int word = 0; word < BITMAP_WORDS; word++) {
+                    long w = bits[word];
+                    while (w != 0) {
+                        rows[count++] = high | (word << 6) | Long.numberOfTrailingZeros(w);
+                        w &= w - 1;
+                    }
+                }
+            } else {
+                for (char low : (char[]) container) {
+                    rows[count++] = high | low;
+                }
+            }
+        }
+        return rows;
+    }
+
+    private static Object and(Object a, Object b) {
+        if (a instanceof long[] && b instanceof long[]) {
+            long[] x = (long[]) a;
+            long[] y = (long[]) b;
+            long[] bits = new long[BITMAP_WORDS];
+            int size = 0;
+            for (int word = 0; word < BITMAP_WORDS; word++) {
+                bits[word] = x[word] & y[word];
+                size += Long.bitCount(bits[word]);
+            }
+            return size > ARRAY_LIMIT ? bits : bitmapToArray(bits, size);
+        }
+        if (a instanceof long[]) {
+            return and(b, a);
+        }
+        char[] x = (char[]) a;
+        char[] low = new char[x.length];
+        int count = 0;
+        if (b instanceof long[]) {
+            long[] y = (long[]) b;
+            for (char value : x) {
+                if ((y[value >>> 6] & (1L << value)) != 0) {
+                    low[count++] = value;
+                }
+            }
+        } else {
+            char[] y = (char[]) b;
+            int i = 0;
+            int j = 0;
+            while (i < x.length && j < y.length) {
+                if (x[i] < y[j]) {
+                    i++;
+                } else if (x[i] > y[j]) {
+                    j++;
+                } else {
+                    low[count++] = x[i];
+                    i++;
+                    j++;
+                }
+            }
+        }
+        return Arrays.copyOf(low, count);
+    }
+
+    private static Object or(Object a, Object b) {
+        if (a instanceof char[] && b instanceof char[]) {
+            char[] x = (char[]) a;
+            char[] y = (char[]) b;
+            char[] low = new char[x.length + y.length];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < x.length || j < y.length) {
+                if (j == y.length || (i < x.length && x[i] < y[j])) {
+                    low[count++] = x[i++];
+                } else if (i == x.length || x[i] > y[j]) {
+                    low[count++] = y[j++];
+                } else {
+                    low[count++] = x[i++];
+                    j++;
+                }
+            }
+            return count > ARRAY_LIMIT ? arrayToBitmap(low, count) : Arrays.copyOf(low, count);
+        }
+        long[] bits = a instanceof long[] ? ((long[]) a).clone() : arrayToBitmap((char[]) a, ((char[]) a).length);
+        if (b instanceof long[]) {
+            long[] y = (long[]) b;
+            for (int word = 0; word < BITMAP_WORDS; word++) {
+                bits[word] |= y[word];
+            }
+        } else {
+            for (char value : (char[]) b) {
+                bits[value >>> 6] |= 1L << value;
+            }
+        }
+        return bits;
+    }
+
+    private static int containerSize(Object container) {
+        if (container instanceof char[]) {
+            return ((char[]) container).length;
+        }
+        int size = 0;
+        for (long word : (long[]) container) {
+            size += Long.bitCount(word);
+        }
+        return size;
+    }
+
+    private static char[] toArray(int[] rows, int start, int end) {
+        char[] low = new char[end - start];
+        for (int i = start; i < end; i++) {
+            low[i - start] = (char) rows[i];
+        }
+        return low;
+    }
+
+    private static long[] toBitmap(int[] rows, int start, int end) {
+        long[] bits = new long[BITMAP_WORDS];
+        for (int i = start; i < end; i++) {
+            bits[(rows[i] & 0xFFFF) >>> 6] |= 1L << rows[i];
+        }
+        return bits;
+    }
+
+    private static long[] arrayToBitmap(char[] low, int count) {
+        long[] bits = new long[BITMAP_WORDS];
+        for (int i = 0; i < count; i++) {
+            bits[low[i] >>> 6] |= 1L << low[i];
+        }
+        return bits;
+    }
+
+    private static char[] bitmapToArray(long[] bits, int size) {
+        char[] low = new char[size];
+        int count = 0;
+        for (int word = 0; word < BITMAP_WORDS; word++) {
+            long w = bits[word];
+            while (w != 0) {
+                low[count++] = (char) ((word << 6) | Long.numberOfTrailingZeros(w));
+                w &= w - 1;
+            }
+        }
+        return low;
+    }
+}
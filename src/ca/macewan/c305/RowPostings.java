@@ -0,0 +1,86 @@
+package ca.macewan.c305;
+
+import java.util.Arrays;
+
+/**
+ * RowPostings keeps, for every code of a dictionary coded column, the list of rows holding it.
+ *
+ * Rows are appended in increasing order while the column is filled, so every list is sorted and
+ * a filter on the column only has to copy the lists of the codes it matches, instead of testing
+ * every row.
+ */
+public class RowPostings {
+    private static final int INITIAL_CAPACITY = 4;
+
+    private int[][] rows = new int[16][];
+    private int[] counts = new int[16];
+
+    /**
+     * Adds a row to the list of a code
+     *
+     * @param code dictionary code of the row
+     * @param row row to add, greater than every row added before
+     */
+    public void add(int code, int row) {
+        if (code >= rows.length) {
+            int capacity = Math.max(code + 1, rows.length * 2);
+            rows = Arrays.copyOf(rows, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+        }
+        int[] list = rows[code];
+        if (list == null) {
+            list = new int[INITIAL_CAPACITY];
+            rows[code] = list;
+        } else if (counts[code] == list.length) {
+            list = Arrays.copyOf(list, list.length * 2);
+            rows[code] = list;
+        }
+        list[counts[code]++] = row;
+    }
+
+    /**
+     * Returns the number of rows holding a code
+     *
+     * @param code dictionary code
+     * @return the number of rows
+     */
+    public int size(int code) {
+        return code < counts.length ? counts[code] : 0;
+    }
+
+    /**
+     * Finds the rows holding any of the matching codes
+     *
+     * @param matches array indexed by code that is true for the codes to find
+     * @return the rows in increasing order
+     */
+    public int[] findRows(boolean[] matches) {
+        int codes = Math.min(matches.length, counts.length);
+        int total = 0;
+        int lists = 0;
+        for (int code = 0; code < codes; code++) {
+            if (matches[code] && counts[code] > 0) {
+                total += counts[code];
+                lists++;
+            }
+        }
+
+        int[] found = new int[total];
+        int count = 0;
+        for (int code = 0; code < codes; code++) {
+            if (matches[code] && counts[code] > 0) {
+                System.arraycopy(rows[code], 0, found, count, counts[code]);
+                count += counts[code];
+            }
+        }
+        if (lists > 1) {
+            Arrays.sort(found); // each list is sorted, but the lists interleave
+        }
+        return found;
+    }
+
+    public void clear() {
+        Arrays.fill(rows, null);
+        Arrays.fill(counts, 0);
+    }
+}
@@ -13,7 +13,6 @@ import javafx.scene.text.FontWeight;
 import javafx.scene.web.WebEngine;
 
 import java.io.IOException;
-import java.nio.file.Paths;
 import java.text.NumberFormat;
 import java.util.*;
 
@@ -22,32 +21,29 @@ import java.util.*;
  */
 public class SideControls{
     private WebEngine webEngine;
-    private PropertyAssessments propertyAssessmentsMaster; //The list that is loaded in at the start or when changing datasets
+    private final DatasetSession session; //The dataset shared by every tab
     private PropertyAssessments propertyAssessments; //The subset
     private VBox vbox;
     TextArea textArea;
-    private ComboBox neighbourhoodBox;
-    private ComboBox wardBox;
-    private ComboBox classBox;
+    private ComboBox<String> neighbourhoodBox;
+    private ComboBox<String> wardBox;
+    private ComboBox<String> classBox;
     private TextField accountField;
     private TextField addressField;
-    private ObservableList<PropertyAssessment> properties;
     private NumberFormat moneyMaker = NumberFormat.getCurrencyInstance();
-    private Map<String, List<Location>> wardBounds;
-    Map<String, List<Location>> neighborhoodBounds;
+    private final BoundaryRepository boundaries;
+    private final ComputationService computations = new ComputationService("Search");
 
     /**
      * Creates content for the side bar
      *
      */
-    public SideControls(PropertyAssessments propertyAssessments, WebEngine webEngine, ObservableList<PropertyAssessment> properties) throws IOException {
-        wardBounds = getCoordinates("Municipal_20Ward_20Boundaries_20_Tableau_.csv");
-        neighborhoodBounds = getCoordinates("Neighbourhood_20Boundaries_20_Tableau_.csv");
+    public SideControls(DatasetSession session, WebEngine webEngine) throws IOException {
+        boundaries = BoundaryRepository.getInstance();
         moneyMaker.setMaximumFractionDigits(0);
-        this.propertyAssessments = propertyAssessments;
-        this.propertyAssessmentsMaster = deepCopy(propertyAssessments);
+        this.session = session;
+        this.propertyAssessments = session.getAssessments();
         this.webEngine = webEngine;
-        this.properties = properties;
         vbox = new VBox();
         vbox.setPadding(new Insets(10,10,10,10));
         vbox.setSpacing(10);
@@ -74,15 +70,16 @@ public class SideControls{
                 textArea,
                 searchControls
         );
+        session.addListener(this::showSubset);
     }
 
     /**
-     * Resets the master list after loading in a new dataset
+     * Fills the selectors with the neighbourhoods, wards and classes of the current dataset
      */
-    public void updateMasterList(){
-        this.propertyAssessmentsMaster = deepCopy(propertyAssessments);
-        textArea.setText(propertyAssessments.toString());
-        updateOList(propertyAssessments);
+    private void updateOptions(){
+        neighbourhoodBox.setItems(FXCollections.observableArrayList(propertyAssessments.getNeighborhoodSet()));
+        wardBox.setItems(FXCollections.observableArrayList(propertyAssessments.getSortedWardList()));
+        classBox.setItems(FXCollections.observableArrayList(propertyAssessments.getClassSet()));
     }
 
 
@@ -99,50 +96,52 @@ public class SideControls{
 
             String account = accountField.getText().strip();
             String address = addressField.getText().strip();
-            String neighbourhood = (String)neighbourhoodBox.getValue();
-            String ward = (String)wardBox.getValue();
-            String assessmentClass = (String)classBox.getValue();
+            String neighbourhood = neighbourhoodBox.getValue();
+            String ward = wardBox.getValue();
+            String assessmentClass = classBox.getValue();
             neighbourhoodBox.setValue(null);
             wardBox.setValue(null);
 
-            //adding this to fix the current implementation of creating a new list every time
-            if (!account.equals("")) {
-                propertyAssessments.propertyAssessmentsList = propertyAssessments.getAssessmentsByAccount(account).propertyAssessmentsList;
-            }
-            if (!address.equals("")) {
-                propertyAssessments.propertyAssessmentsList = propertyAssessments.getAssessmentsByAddress(address).propertyAssessmentsList;
-            }
             if (neighbourhood != null) {
-                propertyAssessments.propertyAssessmentsList = propertyAssessments.getAssessmentsByNeighbourhood(neighbourhood).propertyAssessmentsList;
-                    if(webEngine != null) {
-                        webEngine.executeScript("clearMap()");
-                    }
-                    Location centre = getCentre(neighborhoodBounds.get(neighbourhood));
-                    List<Location> neighborhoodCoordinates =  neighborhoodBounds.get(neighbourhood);
-                    if (webEngine != null) {
-                        jsGoMap(centre, 14, neighborhoodCoordinates);
-                    }
+                if(webEngine != null) {
+                    webEngine.executeScript("clearMap()");
+                }
+                Boundary neighbourhoodBoundary = boundaries.getNeighbourhood(neighbourhood);
+                if (webEngine != null && neighbourhoodBoundary != null) {
+                    jsGoMap(neighbourhoodBoundary.getCentre(), 14, neighbourhoodBoundary);
                 }
+            }
             if (ward != null) {
-                propertyAssessments.propertyAssessmentsList = propertyAssessments.getAssessmentsByWard(ward).propertyAssessmentsList;
-
                 if(webEngine != null) {
                     webEngine.executeScript("clearMap()");
                 }
-                Location centre = getCentre(wardBounds.get(ward.toUpperCase()));
-                List<Location> wardCoordinates = wardBounds.get(ward.toUpperCase());
-                if (webEngine != null) {
-                    jsGoMap(centre, 12, wardCoordinates);
+                Boundary wardBoundary = boundaries.getWard(ward.toUpperCase());
+                if (webEngine != null && wardBoundary != null) {
+                    jsGoMap(wardBoundary.getCentre(), 12, wardBoundary);
                 }
                 //updateLegend(ward);
             }
-            if (assessmentClass != null) {
-                propertyAssessments.propertyAssessmentsList = propertyAssessments.getAssessmentsByClass(assessmentClass).propertyAssessmentsList;
-            }
 
-            updateOList(propertyAssessments);
-            textArea.setText(propertyAssessments.toString());
-            PropertyTable.vis.refresh();
+            //Combine every filter first and build the matching subset once, off the FX thread
+            AssessmentQuery query = session.newQuery();
+            computations.submit(() -> {
+                if (!account.equals("")) {
+                    query.account(account);
+                }
+                if (!address.equals("")) {
+                    query.address(address);
+                }
+                if (neighbourhood != null) {
+                    query.neighbourhood(neighbourhood);
+                }
+                if (ward != null) {
+                    query.ward(ward);
+                }
+                if (assessmentClass != null) {
+                    query.assessmentClass(assessmentClass);
+                }
+                return DatasetSession.select(query);
+            }, session::show);
             accountField.clear();
             addressField.clear();
         });
@@ -153,12 +152,8 @@ public class SideControls{
             addressField.clear();
             neighbourhoodBox.setValue(null);
             classBox.setValue(null);
-            PropertyAssessments p = deepCopy(propertyAssessmentsMaster);
-            propertyAssessments.propertyAssessmentsList = p.propertyAssessmentsList;
-            textArea.setText(propertyAssessments.toString());
-            PropertyTable.vis.refresh();
-
-            updateOList(propertyAssessmentsMaster);
+            computations.cancel();
+            session.reset();
         });
 
         controls.getChildren().addAll(searchBtn, resetBtn);
@@ -193,7 +188,7 @@ public class SideControls{
         final Label neighbourhoodLabel = new Label("Select neighbourhood");
         Set<String> neighbourhoodSet = propertyAssessments.getNeighborhoodSet();
         ObservableList<String> options = FXCollections.observableArrayList(neighbourhoodSet);
-        neighbourhoodBox = new ComboBox(options);
+        neighbourhoodBox = new ComboBox<>(options);
         neighbourhoodBox.setMaxWidth(100);
         HBox hBox = new HBox();
         hBox.setSpacing(10);
@@ -213,7 +208,7 @@ public class SideControls{
         final Label wardLabel = new Label("Select ward");
         String[] wardSet = propertyAssessments.getSortedWardList();
         ObservableList<String> options2 = FXCollections.observableArrayList(wardSet);
-        wardBox = new ComboBox(options2);
+        wardBox = new ComboBox<>(options2);
         wardBox.setMinWidth(100);
         HBox hBox2 = new HBox();
         hBox2.setSpacing(10);
@@ -233,7 +228,7 @@ public class SideControls{
         Set<String> classSet = propertyAssessments.getClassSet();
         ObservableList<String> options = FXCollections.observableArrayList(classSet);
         final Label assessLabel = new Label("Assessment Class:");
-        classBox = new ComboBox(options);
+        classBox = new ComboBox<>(options);
 
         classSelector.getChildren().addAll(assessLabel, classBox);
         return classSelector;
@@ -248,134 +243,36 @@ public class SideControls{
     }
 
     /**
-     * Adds the list of properties that match the search query to the table list
-     *
-     * @param searchResults
-     */
-    private void updateOList(PropertyAssessments searchResults){
-        //Load assessments into observable list
-        properties.clear();
-        for(PropertyAssessment p : searchResults.propertyAssessmentsList)
-            properties.add(p); //add to collection to be returned
-    }
-
-    /**
-     * Creates a deep copy of a PropertyAssessments to prevent mutability
-     * @param properties
-     * @return
-     */
-    private PropertyAssessments deepCopy(PropertyAssessments properties){
-        PropertyAssessments newProperties = new PropertyAssessments();
-        for(PropertyAssessment p : properties.propertyAssessmentsList){
-            newProperties.addPropertyAssessment(p);
-        }
-        return newProperties;
-    }
-
-    /**
-     *
-     * @param filename
-     * @return
-     * @throws IOException
-     * @throws NumberFormatException
-     */
-    private static Map<String, List<Location>> getCoordinates(String filename) throws IOException, NumberFormatException {
-        Scanner file = new Scanner(Paths.get(filename));
-        int n = getLength(file);
-        file = new Scanner(Paths.get(filename));
-
-        Map<String, List<Location>> coordinates = new HashMap<>();
-        List<Location> bounds = new ArrayList<>();
-        String currentLine = file.nextLine(); // set currentLine to first line in file
-        currentLine = currentLine.replaceFirst("^\uFEFF", "");
-        String[] lineArray = currentLine.split(","); // split line by commas
-        String name = lineArray[0]; // set name to first name of file
-        //Location coordinate = new Location(Double.parseDouble(lineArray[1]), Double.parseDouble(lineArray[2])); // set coordinate
-        bounds.add( new Location(Double.parseDouble(lineArray[1]), Double.parseDouble(lineArray[2]))); // put first coordinate in bounds list
-        for (int i = 0 ; i <= n && file.hasNextLine() ; i++){
-            // iterate through each line and make a Property Assessment from each
-            currentLine = file.nextLine(); // iterate to next line
-            lineArray = currentLine.split(",");
-            if(lineArray[0].equals(name) && file.hasNextLine()){
-                bounds.add( new Location(Double.parseDouble(lineArray[1]), Double.parseDouble(lineArray[2]))); // if compare and name are equal, add coordinate to bounds list
-            }
-            else{
-                List<Location>boundsCopy = new ArrayList<>(); // if compare an name are not equal, make a deep copy of bounds list
-                for(Location coord : bounds) {
-                    boundsCopy.add(coord.getCopy());
-                }
-                coordinates.put(name, boundsCopy); // add name(key) and deep copy of bounds list(value) to coordinates hash map
-                bounds.clear(); // clear bounds list
-                bounds.add( new Location(Double.parseDouble(lineArray[1]), Double.parseDouble(lineArray[2]))); // add coordinate to boudns list
-                name = lineArray[0]; // reset name
-            }
-
-        }
-        return coordinates;
-    }
-
-    /**
+     * Shows the current subset of the session in the statistics text
      *
-     * @param coordinates
-     * @return
+     * @param datasetChanged true if a new dataset was loaded, so the selectors are filled again
      */
-    public Location getCentre(List<Location>coordinates) {
-        Double minLatitude = 90.0, maxLatitude = -90.0, minLongitude = 180.0, maxLongitude = -180.0;
-        for (Location l : coordinates) {
-            // Set max and min Latitude
-            if (l.getLatitude() > maxLatitude) {
-                maxLatitude = l.getLatitude();
-            }
-            if (l.getLatitude() < minLatitude) {
-                minLatitude = l.getLatitude();
-            }
-            // Set max and min Longitude
-            if (l.getLongitude() > maxLongitude) {
-                maxLongitude = l.getLongitude();
-            }
-            if (l.getLongitude() < minLongitude) {
-                minLongitude = l.getLongitude();
-            }
+    private void showSubset(boolean datasetChanged) {
+        textArea.setText(propertyAssessments.toString());
+        if (datasetChanged) {
+            updateOptions();
         }
-        // return centre coordinate based on max and min latitude and longitude
-        return new Location((maxLatitude + minLatitude) / 2, (maxLongitude + minLongitude) / 2);
     }
 
     /**
+     * Centres the map on an area and draws its boundary with only the detail the zoom level shows
      *
-     * @param centre
-     * @param zoom
-     * @param bounds
+     * @param centre centre of the map
+     * @param zoom zoom level of the map
+     * @param bounds boundary to draw
      */
-    private void jsGoMap(Location centre, double zoom, List<Location> bounds){
+    private void jsGoMap(Location centre, double zoom, Boundary bounds){
         StringBuilder jsArray = new StringBuilder();
         jsArray.append(centre.getLatitude() + ", " + centre.getLongitude() + ", " + zoom); // set js string
         webEngine.executeScript("setCentreAndZoom(" + jsArray.toString() + ")"); // execute js function using js string
         jsArray.setLength(0); // reset string
+        double[] coordinates = bounds.getCoordinates(zoom);
         jsArray.append("[");
-        for (Location l: bounds) {
-            jsArray.append("[" + l.getLatitude() + ", " + l.getLongitude() + "],"); // set js string
+        for (int i = 0; i < coordinates.length; i += 2) {
+            jsArray.append('[').append(coordinates[i]).append(", ").append(coordinates[i + 1]).append("],"); // set js string
         }
         jsArray.deleteCharAt(jsArray.length()-1);
         jsArray.append("]");
         webEngine.executeScript("drawBoundary(" + jsArray.toString() + ")"); // execute js function using js string
     }
-
-
-    /**
-     *
-     * @param file
-     * @return
-     */
-    private static int getLength(Scanner file){
-        int n = 0;
-        if (file.hasNextLine()) {
-            file.nextLine();
-        }
-        while (file.hasNextLine()) {
-            file.nextLine();
-            n++;
-        }
-        return n;
-    }
 }
@@ -0,0 +1,371 @@
+package ca.macewan.c305;
+
+import java.util.Arrays;
+
+/**
+ * SpatialIndex finds the rows whose location is in an area without scanning every row.
+ *
+ * The bounding box of all locations is cut into a uniform grid of cells holding a few rows
+ * each. The rows are sorted by cell once, and the locations are copied in the same order, so a
+ * query only reads the contiguous runs of the cells it overlaps. Nearest neighbour queries look
+ * at rings of cells around the query point and stop once no cell further out can hold a row
+ * closer than the k-th nearest found so far.
+ *
+ * Distances are great circle distances in metres.
+ */
+public class SpatialIndex {
+    public static final double EARTH_RADIUS_METRES = 6_371_008.8;
+    private static final double METRES_PER_DEGREE = EARTH_RADIUS_METRES * Math.PI / 180;
+    // Average number of rows per cell the grid is sized for
+    private static final int ROWS_PER_CELL = 4;
+
+    private final int size;
+    private final double minLatitude;
+    private final double minLongitude;
+    private final int gridWidth;
+    private final int gridHeight;
+    private final double cellsPerLatitude;
+    private final double cellsPerLongitude;
+    // Largest distance from the equator of any location, for bounds on longitude distances
+    private final double maxAbsLatitude;
+    // Rows of cell c are rows[offsets[c]] to rows[offsets[c + 1] - 1], in increasing order
+    private final int[] offsets;
+    private final int[] rows;
+    private final double[] latitudes;
+    private final double[] longitudes;
+
+    /**
+     * Builds the index over every row of a column store
+     *
+     * @param columns rows to index, must not change while the index is used
+     */
+    public SpatialIndex(AssessmentColumns columns) {
+        size = columns.size();
+        double[] rowLatitudes = columns.latitudeColumn();
+        double[] rowLongitudes = columns.longitudeColumn();
+        double south = Double.POSITIVE_INFINITY, north = Double.NEGATIVE_INFINITY;
+        double west = Double.POSITIVE_INFINITY, east = Double.NEGATIVE_INFINITY;
+        for (int row = 0; row < size; row++) {
+            south = Math.min(south, rowLatitudes[row]);
+            north = Math.max(north, rowLatitudes[row]);
+            west = Math.min(west, rowLongitudes[row]);
+            east = Math.max(east, rowLongitudes[row]);
+        }
+        if (size == 0) {
+            south = north = west = east = 0;
+        }
+        minLatitude = south;
+        minLongitude = west;
+        maxAbsLatitude = Math.max(Math.abs(south), Math.abs(north));
+
+        // Square cells on the ground, as many as the rows need
+        double heightMetres = Math.max((north - south) * METRES_PER_DEGREE, 1);
+        double widthMetres = Math.max((east - west) * METRES_PER_DEGREE
+                * Math.cos(Math.toRadians((north + south) / 2)), 1);
+        double cellMetres = Math.sqrt(heightMetres * widthMetres * ROWS_PER_CELL / Math.max(size, 1));
+        gridWidth = (int) Math.max(1, Math.min(widthMetres / cellMetres, 1 << 12));
+        gridHeight = (int) Math.max(1, Math.min(heightMetres / cellMetres, 1 << 12));
+        cellsPerLatitude = north > south ? gridHeight / (north - south) : 0;
+        cellsPerLongitude = east > west ? gridWidth / (east - west) : 0;
+
+        // Counting sort of the rows by cell
+        int[] cells = new int[size];
+        offsets = new int[gridWidth * gridHeight + 1];
+        for (int row = 0; row < size; row++) {
+            cells[row] = cellY(rowLatitudes[row]) * gridWidth + cellX(rowLongitudes[row]);
+            offsets[cells[row] + 1]++;
+        }
+        for (int cell = 0; cell < gridWidth * gridHeight; cell++) {
+            offsets[cell + 1] += offsets[cell];
+        }
+        int[] next = Arrays.copyOf(offsets, offsets.length - 1);
+        rows = new int[size];
+        latitudes = new double[size];
+        longitudes = new double[size];
+        for (int row = 0; row < size; row++) {
+            int position = next[cells[row]]++;
+            rows[position] = row;
+            latitudes[position] = rowLatitudes[row];
+            longitudes[position] = rowLongitudes[row];
+        }
+    }
+
+    /**
+     * Finds the rows whose location is inside a box, edges included
+     *
+     * @param south southern edge of the box, in degrees of latitude
+     * @param west western edge of the box, in degrees of longitude
+     * @param north northern edge of the box
+     * @param east eastern edge of the box
+     * @return the rows in increasing order
+     */
+    public int[] findWithin(double south, double west, double north, double east) {
+        if (size == 0 || !(north >= south) || !(east >= west)) {
+            return new int[0];
+        }
+        RowCollector found = new RowCollector();
+        for (int y = cellY(south); y <= cellY(north); y++) {
+            for (int x = cellX(west); x <= cellX(east); x++) {
+                int cell = y * gridWidth + x;
+                for (int i = offsets[cell]; i < offsets[cell + 1]; i++) {
+                    if (latitudes[i] >= south && latitudes[i] <= north
+                            && longitudes[i] >= west && longitudes[i] <= east) {
+                        found.add(rows[i]);
+                    }
+                }
+            }
+        }
+        return found.toSortedArray();
+    }
+
+    /**
+     * Finds the rows whose location is within a distance of a point
+     *
+     * @param centre the point
+     * @param metres largest distance from the point
+     * @return the rows in increasing order
+     */
+    public int[] findWithinRadius(Location centre, double metres) {
+        if (size == 0 || !(metres >= 0)) {
+            return new int[0];
+        }
+        double latitude = centre.getLatitude();
+        double longitude = centre.getLongitude();
+        double latitudeRange = metres / METRES_PER_DEGREE;
+        double longitudeRange = longitudeRange(metres, Math.abs(latitude) + latitudeRange);
+        double south = latitude - latitudeRange;
+        double north = latitude + latitudeRange;
+        double west = longitude - longitudeRange;
+        double east = longitude + longitudeRange;
+
+        RowCollector found = new RowCollector();
+        for (int y = cellY(south); y <= cellY(north); y++) {
+            for (int x = cellX(west); x <= cellX(east); x++) {
+                int cell = y * gridWidth + x;
+                for (int i = offsets[cell]; i < offsets[cell + 1]; i++) {
+                    if (latitudes[i] >= south && latitudes[i] <= north
+                            && distanceMetres(latitude, longitude, latitudes[i], longitudes[i]) <= metres) {
+                        found.add(rows[i]);
+                    }
+                }
+            }
+        }
+        return found.toSortedArray();
+    }
+
+    /**
+     * Finds the rows closest to a point. Rows at the same distance are ordered by row.
+     *
+     * @param location the point
+     * @param k number of rows to find
+     * @return up to k rows, nearest first
+     */
+    public int[] nearestK(Location location, int k) {
+        k = Math.min(k, size);
+        if (k <= 0) {
+            return new int[0];
+        }
+        double latitude = location.getLatitude();
+        double longitude = location.getLongitude();
+        NearestRows nearest = new NearestRows(k);
+        int centreX = cellX(longitude);
+        int centreY = cellY(latitude);
+        for (int ring = 0; ; ring++) {
+            int x0 = centreX - ring, x1 = centreX + ring, y0 = centreY - ring, y1 = centreY + ring;
+            for (int y = Math.max(y0, 0); y <= Math.min(y1, gridHeight - 1); y++) {
+                boolean edgeRow = y == y0 || y == y1;
+                for (int x = Math.max(x0, 0); x <= Math.min(x1, gridWidth - 1); x++) {
+                    if (!edgeRow && x != x0 && x != x1) {
+                        x = x1 - 1; // inner cells were seen in earlier rings
+                        continue;
+                    }
+                    int cell = y * gridWidth + x;
+                    for (int i = offsets[cell]; i < offsets[cell + 1]; i++) {
+                        nearest.offer(rows[i], distanceMetres(latitude, longitude, latitudes[i], longitudes[i]));
+                    }
+                }
+            }
+
+            boolean moreWest = x0 > 0, moreEast = x1 < gridWidth - 1;
+            boolean moreSouth = y0 > 0, moreNorth = y1 < gridHeight - 1;
+            if (!(moreWest || moreEast || moreSouth || moreNorth)) {
+                break; // every cell was seen
+            }
+            if (nearest.isFull()) {
+                // Any row outside the cells seen so far is at least this far away
+                double bound = Double.POSITIVE_INFINITY;
+                double phi = Math.max(maxAbsLatitude, Math.abs(latitude));
+                if (moreWest) {
+                    bound = Math.min(bound, longitudeDistance(longitude - cellWest(x0), phi));
+                }
+                if (moreEast) {
+                    bound = Math.min(bound, longitudeDistance(cellWest(x1 + 1) - longitude, phi));
+                }
+                if (moreSouth) {
+                    bound = Math.min(bound, Math.max(latitude - cellSouth(y0), 0) * METRES_PER_DEGREE);
+                }
+                if (moreNorth) {
+                    bound = Math.min(bound, Math.max(cellSouth(y1 + 1) - latitude, 0) * METRES_PER_DEGREE);
+                }
+                if (bound > nearest.farthest()) {
+                    break;
+                }
+            }
+        }
+        return nearest.toArray();
+    }
+
+    /**
+     * Returns the great circle distance between two points
+     *
+     * @return the distance in metres
+     */
+    public static double distanceMetres(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double phi1 = Math.toRadians(latitude1);
+        double phi2 = Math.toRadians(latitude2);
+        double sinHalfPhi = Math.sin((phi2 - phi1) / 2);
+        double sinHalfLambda = Math.sin(Math.toRadians(longitude2 - longitude1) / 2);
+        double haversine = sinHalfPhi * sinHalfPhi + Math.cos(phi1) * Math.cos(phi2) * sinHalfLambda * sinHalfLambda;
+        return 2 * EARTH_RADIUS_METRES * Math.asin(Math.min(1, Math.sqrt(haversine)));
+    }
+
+    /**
+     * Returns the smallest distance between two points that are a number of degrees of
+     * longitude apart and no further than phi degrees from the equator
+     */
+    private static double longitudeDistance(double degrees, double phi) {
+        if (degrees <= 0) {
+            return 0;
+        }
+        double halfLambda = Math.toRadians(Math.min(degrees, 180)) / 2;
+        return 2 * EARTH_RADIUS_METRES * Math.asin(Math.min(1, Math.cos(Math.toRadians(Math.min(phi, 90))) * Math.sin(halfLambda)));
+    }
+
+    /**
+     * Returns how many degrees of longitude a distance covers at most, up to phi degrees from
+     * the equator
+     */
+    private static double longitudeRange(double metres, double phi) {
+        double cos = Math.cos(Math.toRadians(Math.min(phi, 90)));
+        return cos * METRES_PER_DEGREE <= metres / 180 ? 180 : Math.min(metres / (METRES_PER_DEGREE * cos), 180);
+    }
+
+    private int cellX(double longitude) {
+        return clamp((int) Math.floor((longitude - minLongitude) * cellsPerLongitude), gridWidth);
+    }
+
+    private int cellY(double latitude) {
+        return clamp((int) Math.floor((latitude - minLatitude) * cellsPerLatitude), gridHeight);
+    }
+
+    private double cellWest(int x) {
+        return minLongitude + x / cellsPerLongitude;
+    }
+
+    private double cellSouth(int y) {
+        return minLatitude + y / cellsPerLatitude;
+    }
+
+    private static int clamp(int cell, int cells) {
+        return Math.max(0, Math.min(cell, cells - 1));
+    }
+
+    /**
+     * Growable list of found rows
+     */
+    private static final class RowCollector {
+        private int[] found = new int[64];
+        private int count;
+
+        void add(int row) {
+            if (count == found.length) {
+                found = Arrays.copyOf(found, count * 2);
+            }
+            found[count++] = row;
+        }
+
+        int[] toSortedArray() {
+            int[] sorted = Arrays.copyOf(found, count);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+
+    /**
+     * The k closest rows seen so far, in a max heap on distance
+     */
+    private static final class NearestRows {
+        private final int[] heapRows;
+        private final double[] heapDistances;
+        private int count;
+
+        NearestRows(int k) {
+            heapRows = new int[k];
+            heapDistances = new double[k];
+        }
+
+        boolean isFull() {
+            return count == heapRows.length;
+        }
+
+        double farthest() {
+            return heapDistances[0];
+        }
+
+        void offer(int row, double distance) {
+            if (count < heapRows.length) {
+                int i = count++;
+                while (i > 0 && after(row, distance, (i - 1) / 2)) {
+                    heapRows[i] = heapRows[(i - 1) / 2];
+                    heapDistances[i] = heapDistances[(i - 1) / 2];
+                    i = (i - 1) / 2;
+                }
+                heapRows[i] = row;
+                heapDistances[i] = distance;
+            } else if (!after(row, distance, 0)) {
+                // Replace the farthest and sift down
+                int i = 0;
+                while (2 * i + 1 < count) {
+                    int child = 2 * i + 1;
+                    if (child + 1 < count && before(child, child + 1)) {
+                        child++;
+                    }
+                    if (!after(heapRows[child], heapDistances[child], row, distance)) {
+                        break;
+                    }
+                    heapRows[i] = heapRows[child];
+                    heapDistances[i] = heapDistances[child];
+                    i = child;
+                }
+                heapRows[i] = row;
+                heapDistances[i] = distance;
+            }
+        }
+
+        int[] toArray() {
+            Integer[] order = new Integer[count];
+            for (int i = 0; i < count; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> before(a, b) ? -1 : before(b, a) ? 1 : 0);
+            int[] nearest = new int[count];
+            for (int i = 0; i < count; i++) {
+                nearest[i] = heapRows[order[i]];
+            }
+            return nearest;
+        }
+
+        // Orders by distance, then by row
+        private boolean after(int row, double distance, int slot) {
+            return after(row, distance, heapRows[slot], heapDistances[slot]);
+        }
+
+        private static boolean after(int row, double distance, int otherRow, double otherDistance) {
+            return distance > otherDistance || (distance == otherDistance && row > otherRow);
+        }
+
+        private boolean before(int slot, int otherSlot) {
+            return after(heapRows[otherSlot], heapDistances[otherSlot], heapRows[slot], heapDistances[slot]);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package ca.macewan.c305;
+
+/**
+ * StatisticsAccumulator collects the count, sum, minimum, maximum, mean and variance of a
+ * stream of assessed values in one pass.
+ *
+ * The variance uses Welford's update, which stays accurate when the values are large and close
+ * together, and two accumulators can be combined (Chan et al.), e.g. after a parallel load.
+ */
+public class StatisticsAccumulator {
+    private long count;
+    private long sum;
+    private int min = Integer.MAX_VALUE;
+    private int max = Integer.MIN_VALUE;
+    private double mean;
+    // Sum of squared differences from the mean
+    private double m2;
+
+    public StatisticsAccumulator() {
+    }
+
+    /**
+     * Creates an accumulator holding the same values as another
+     *
+     * @param other accumulator to copy
+     */
+    public StatisticsAccumulator(StatisticsAccumulator other) {
+        copy(other);
+    }
+
+    /**
+     * Adds a value
+     *
+     * @param value value to add
+     */
+    public void add(int value) {
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+    }
+
+    /**
+     * Adds every value that was added to another accumulator
+     *
+     * @param other accumulator to add
+     */
+    public void combine(StatisticsAccumulator other) {
+        if (other.count == 0) {
+            return;
+        }
+        if (count == 0) {
+            copy(other);
+            return;
+        }
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        m2 += other.m2 + delta * delta * ((double) count * other.count / total);
+        mean += delta * other.count / total;
+        count = total;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public void clear() {
+        count = 0;
+        sum = 0;
+        min = Integer.MAX_VALUE;
+        max = Integer.MIN_VALUE;
+        mean = 0;
+        m2 = 0;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getSum() {
+        return sum;
+    }
+
+    /**
+     * @return the smallest value, or Integer.MAX_VALUE if no value was added
+     */
+    public int getMin() {
+        return min;
+    }
+
+    /**
+     * @return the largest value, or Integer.MIN_VALUE if no value was added
+     */
+    public int getMax() {
+        return max;
+    }
+
+    /**
+     * @return the mean, or 0 if no value was added
+     */
+    public double getMean() {
+        // The exact sum gives the same mean as dividing the total, the running mean is for m2
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * @return the population variance, or 0 if no value was added
+     */
+    public double getVariance() {
+        return count == 0 ? 0 : Math.max(m2, 0) / count;
+    }
+
+    private void copy(StatisticsAccumulator other) {
+        count = other.count;
+        sum = other.sum;
+        min = other.min;
+        max = other.max;
+        mean = other.mean;
+        m2 = other.m2;
+    }
+}
@@ -0,0 +1,135 @@
+package ca.macewan.c305;
+
+/**
+ * StatisticsSummary holds the descriptive statistics of a set of assessed values.
+ *
+ * It is computed once, with one pass for the count, sum, minimum, maximum, mean and variance
+ * and selections for the median and the other standard quantiles, and cannot change afterwards,
+ * so it can be shared by the statistics text, the charts and the map legend.
+ */
+public final class StatisticsSummary {
+    private final long count;
+    private final long sum;
+    private final int min;
+    private final int max;
+    private final double mean;
+    private final double variance;
+    // Values of Quantiles.STANDARD, or null if there are no values
+    private final double[] quantiles;
+
+    private StatisticsSummary(StatisticsAccumulator accumulator, double[] quantiles) {
+        this.count = accumulator.getCount();
+        this.sum = accumulator.getSum();
+        this.min = accumulator.getMin();
+        this.max = accumulator.getMax();
+        this.mean = accumulator.getMean();
+        this.variance = accumulator.getVariance();
+        this.quantiles = quantiles;
+    }
+
+    /**
+     * Computes the statistics of the first size elements of an array, which is not changed
+     *
+     * @param values values to summarize
+     * @param size number of values
+     * @return the statistics
+     */
+    public static StatisticsSummary of(int[] values, int size) {
+        StatisticsAccumulator accumulator = new StatisticsAccumulator();
+        for (int i = 0; i < size; i++) {
+            accumulator.add(values[i]);
+        }
+        return of(accumulator, values, size);
+    }
+
+    /**
+     * Completes statistics that were accumulated already with the quantiles of the values
+     *
+     * @param accumulator statistics of the values
+     * @param values values that were accumulated, not changed
+     * @param size number of values
+     * @return the statistics
+     */
+    public static StatisticsSummary of(StatisticsAccumulator accumulator, int[] values, int size) {
+        double[] quantiles = size == 0 ? null : Quantiles.of(values, size, Quantiles.STANDARD);
+        return new StatisticsSummary(accumulator, quantiles);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getSum() {
+        return sum;
+    }
+
+    public int getMin() {
+        checkNotEmpty();
+        return min;
+    }
+
+    public int getMax() {
+        checkNotEmpty();
+        return max;
+    }
+
+    public long getRange() {
+        return (long) getMax() - getMin();
+    }
+
+    /**
+     * @return the mean, or 0 if there are no values
+     */
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * @return the population variance, or 0 if there are no values
+     */
+    public double getVariance() {
+        return variance;
+    }
+
+    public double getStDev() {
+        return Math.sqrt(variance);
+    }
+
+    /**
+     * @return the middle value, or the average of the two middle values rounded toward zero
+     */
+    public long getMedian() {
+        return (long) getQuantile(2);
+    }
+
+    public double getP10() {
+        return getQuantile(0);
+    }
+
+    public double getP25() {
+        return getQuantile(1);
+    }
+
+    public double getP75() {
+        return getQuantile(3);
+    }
+
+    public double getP90() {
+        return getQuantile(4);
+    }
+
+    public double getP99() {
+        return getQuantile(5);
+    }
+
+    private double getQuantile(int index) {
+        checkNotEmpty();
+        return quantiles[index];
+    }
+
+    private void checkNotEmpty() {
+        if (count == 0) {
+            throw new IndexOutOfBoundsException("The collection is empty");
+        }
+    }
+}
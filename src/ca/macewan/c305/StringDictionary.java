@@ -0,0 +1,135 @@
+package ca.macewan.c305;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * StringDictionary gives every distinct String a small int code, so that a column of
+ * repeated Strings can be stored as an int[] of codes.
+ *
+ * Codes are handed out in order of first use and never change. A dictionary may be shared by
+ * many collections and used from several loading threads at once.
+ *
+ * The dictionary is also the symbol table for its column: intern() returns one shared instance
+ * for equal Strings, so rows with the same value point to the same String.
+ */
+public class StringDictionary {
+    // Size of the cache used to intern bytes without creating a String, must be a power of 2
+    private static final int BYTE_CACHE_SIZE = 4096;
+
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+    private volatile String[] strings = new String[16];
+    private int size;
+    // Recently interned Strings by hash of their bytes. Races only cause misses, never wrong results.
+    private final String[] byteCache = new String[BYTE_CACHE_SIZE];
+
+    /**
+     * Returns the code of a String, adding the String if it has not been seen before
+     *
+     * @param string String to encode
+     * @return code of the String
+     */
+    public int getCode(String string) {
+        Integer code = codes.get(string);
+        if (code != null) {
+            return code;
+        }
+        return addString(string);
+    }
+
+    /**
+     * Returns the shared instance of a String, adding the String if it has not been seen before
+     *
+     * @param string String to intern
+     * @return a String equal to the argument that is used for every equal String
+     */
+    public String intern(String string) {
+        return getString(getCode(string));
+    }
+
+    /**
+     * Returns the shared instance of the String encoded by a range of UTF-8 bytes.
+     * A String is only created when the value is not in the cache.
+     *
+     * @param buffer UTF-8 encoded bytes
+     * @param start offset of the first byte
+     * @param end offset just past the last byte
+     * @return the shared String
+     */
+    public String intern(byte[] buffer, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            if (buffer[i] < 0) {
+                // not plain ASCII, bytes and chars do not line up
+                return intern(new String(buffer, start, end - start, StandardCharsets.UTF_8));
+            }
+            hash = 31 * hash + buffer[i];
+        }
+        int slot = (hash ^ (hash >>> 16)) & (BYTE_CACHE_SIZE - 1);
+        String cached = byteCache[slot];
+        if (cached != null && sameChars(cached, buffer, start, end)) {
+            return cached;
+        }
+        String string = intern(new String(buffer, start, end - start, StandardCharsets.ISO_8859_1));
+        byteCache[slot] = string;
+        return string;
+    }
+
+    private static boolean sameChars(String string, byte[] buffer, int start, int end) {
+        if (string.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < string.length(); i++) {
+            if (string.charAt(i) != buffer[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the code of a String without adding it
+     *
+     * @param string String to look up
+     * @return code of the String, or -1 if the dictionary does not contain it
+     */
+    public int findCode(String string) {
+        Integer code = codes.get(string);
+        return code == null ? -1 : code;
+    }
+
+    /**
+     * Returns the String with the given code
+     *
+     * @param code code returned by getCode
+     * @return the String
+     */
+    public String getString(int code) {
+        return strings[code];
+    }
+
+    /**
+     * Returns the number of Strings in the dictionary. Every code is less than this number.
+     *
+     * @return number of Strings
+     */
+    public int size() {
+        return codes.size();
+    }
+
+    private synchronized int addString(String string) {
+        Integer code = codes.get(string);
+        if (code != null) {
+            return code; // added by another thread in the meantime
+        }
+        String[] table = strings;
+        if (size == table.length) {
+            table = Arrays.copyOf(table, size * 2);
+        }
+        table[size] = string;
+        strings = table;
+        codes.put(string, size);
+        return size++;
+    }
+}
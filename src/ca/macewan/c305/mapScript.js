@@ -1,4 +1,5 @@
 var map, heatmap, heatmapData, areaBoundary;
+var heatmapImage = null, heatmapIdleListener = null;
 
 // Initialize and add the map
 function initMap() {
@@ -161,24 +162,75 @@ function initMap() {
     heatmap.set('gradient', gradient);
 }
 
-//Adds a data point to the map with a weight corresponding to the property value
-function addProperties(properties){
-    var latLng, value, weightedLocation;
-    heatmapData.push(weightedLocation);
-    for (p in properties) {
-        latLng = new google.maps.LatLng(properties[p][0],properties[p][1]);
-        value = properties[p][2];
-        weightedLocation = {
-            location: latLng,
-            weight: value
-        };
-        heatmapData.push(weightedLocation);
+//Adds data points to the map with a weight corresponding to the property value.
+//The points come packed in base64: count latitudes and count longitudes as Float64,
+//then count values as Int32, all little endian
+function addPackedProperties(packed, count){
+    var binary = atob(packed);
+    var bytes = new Uint8Array(binary.length);
+    for (var i = 0; i < binary.length; i++) {
+        bytes[i] = binary.charCodeAt(i);
     }
+    var latitudes = new Float64Array(bytes.buffer, 0, count);
+    var longitudes = new Float64Array(bytes.buffer, count * 8, count);
+    var values = new Int32Array(bytes.buffer, count * 16, count);
+
+    var points = heatmapData.getArray().slice();
+    for (var p = 0; p < count; p++) {
+        points.push({
+            location: new google.maps.LatLng(latitudes[p], longitudes[p]),
+            weight: values[p]
+        });
+    }
+    //One new array instead of a push per point, so the heatmap is redrawn once
+    heatmapData = new google.maps.MVCArray(points);
+    heatmap.setData(heatmapData);
+}
+
+//Asks Java (javaHeatmap) for a heatmap image of the visible area now and whenever the map
+//stops moving
+function enableHeatmapImages(){
+    if (heatmapIdleListener == null) {
+        heatmapIdleListener = map.addListener('idle', requestHeatmapImage);
+    }
+    requestHeatmapImage();
+}
+
+function requestHeatmapImage(){
+    var bounds = map.getBounds();
+    if (!bounds) {
+        return;
+    }
+    var div = map.getDiv();
+    javaHeatmap.viewportChanged(bounds.getSouthWest().lat(), bounds.getSouthWest().lng(),
+        bounds.getNorthEast().lat(), bounds.getNorthEast().lng(), div.offsetWidth, div.offsetHeight);
+}
+
+//Lays a heatmap image rendered by Java over an area, replacing the previous one
+function showHeatmapImage(url, south, west, north, east){
+    if (heatmapIdleListener == null) {
+        return; //cleared in the meantime
+    }
+    var image = new google.maps.GroundOverlay(url,
+        {north: north, south: south, east: east, west: west}, {clickable: false});
+    image.setMap(map);
+    if (heatmapImage != null) {
+        heatmapImage.setMap(null);
+    }
+    heatmapImage = image;
 }
 
 //Clears the map data
 function clearMap(){
     heatmapData.clear();
+    if (heatmapIdleListener != null) {
+        google.maps.event.removeListener(heatmapIdleListener);
+        heatmapIdleListener = null;
+    }
+    if (heatmapImage != null) {
+        heatmapImage.setMap(null);
+        heatmapImage = null;
+    }
     areaBoundary.clear();
     document.getElementById('max').innerHTML = "";
     document.getElementById('min').innerHTML = "";
@@ -0,0 +1,50 @@
+package ca.macewan.c305;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountPrefixIndexTest {
+    private int[] accounts;
+    private AccountPrefixIndex index;
+
+    @BeforeEach
+    void setUp() {
+        Random random = new Random(305);
+        accounts = new int[5000];
+        for (int i = 0; i < accounts.length; i++) {
+            accounts[i] = random.nextInt(20000000);
+        }
+        accounts[10] = 0;
+        accounts[11] = Integer.MAX_VALUE;
+        accounts[12] = accounts[13];
+        index = new AccountPrefixIndex(accounts, accounts.length);
+    }
+
+    private int[] scan(String prefix) {
+        return IntStream.range(0, accounts.length)
+                .filter(row -> Integer.toString(accounts[row]).startsWith(prefix))
+                .toArray();
+    }
+
+    @Test
+    void testMatchesScan() {
+        String[] prefixes = {"", "1", "10", "123", "1999", "0", "01", "2147483647", "21474836470", "9", "-1", "x"};
+        for (String prefix : prefixes) {
+            assertArrayEquals(scan(prefix), index.findRows(prefix), "prefix " + prefix);
+        }
+        String duplicate = Integer.toString(accounts[13]);
+        assertTrue(Arrays.stream(index.findRows(duplicate)).anyMatch(row -> row == 12));
+    }
+
+    @Test
+    void testEmptyIndex() {
+        AccountPrefixIndex empty = new AccountPrefixIndex(new int[0], 0);
+        assertEquals(0, empty.findRows("1").length);
+    }
+}
@@ -0,0 +1,62 @@
+package ca.macewan.c305;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AddressIndexTest {
+    private AssessmentColumns columns;
+    private AddressIndex index;
+
+    @BeforeEach
+    void setUp() {
+        String[][] addresses = {
+                {"", "10130", "105 STREET NW"},
+                {"1205", "10130", "105 STREET NW"},
+                {"", "8708", "MAIN STREET"},
+                {"", "111", "111 AVENUE NW"},
+                {"", "5", "JASPER AVENUE NW"},
+                {"", "", ""},
+        };
+        columns = new AssessmentColumns();
+        Neighbourhood neighbourhood = Neighbourhood.of(1, "DOWNTOWN", "Ward 6");
+        for (int i = 0; i < addresses.length; i++) {
+            Address address = new Address(addresses[i][0], addresses[i][1], addresses[i][2]);
+            columns.add(new PropertyAssessment(1000 + i, address, 100000, "RESIDENTIAL",
+                    neighbourhood, "N", new Location(53.5, -113.5)));
+        }
+        index = new AddressIndex(columns);
+    }
+
+    private int[] scan(String search) {
+        return IntStream.range(0, columns.size())
+                .filter(row -> columns.getAddressText(row).contains(search))
+                .toArray();
+    }
+
+    @Test
+    void testMatchesScan() {
+        String[] searches = {"", "1", "10", "101", "10130 105", "STREET", "105 STREET NW", "111",
+                "111 111", "AVENUE", "NUE", "TSE", "5 JASPER", "1205 10130", "MISSING"};
+        for (String search : searches) {
+            assertArrayEquals(scan(search), index.findRows(search), "search " + search);
+        }
+    }
+
+    @Test
+    void testTrigramsOutOfOrder() {
+        // Both trigrams appear in row 0 but never next to each other
+        assertEquals(0, index.findRows("NW 105").length);
+    }
+
+    @Test
+    void testColumnsFindAddress() {
+        assertArrayEquals(new int[] {2}, columns.findAddress("MAIN"));
+        columns.add(new PropertyAssessment(2000, new Address("", "1", "MAIN STREET"), 1,
+                "RESIDENTIAL", Neighbourhood.of(1, "DOWNTOWN", "Ward 6"), "N", new Location(0, 0)));
+        assertArrayEquals(new int[] {2, 6}, columns.findAddress("MAIN"));
+    }
+}
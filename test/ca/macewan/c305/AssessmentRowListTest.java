@@ -0,0 +1,58 @@
+package ca.macewan.c305;
+
+import javafx.collections.ListChangeListener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AssessmentRowListTest {
+    private PropertyAssessments propertyAssessments;
+    private AssessmentRowList rows;
+
+    @BeforeEach
+    void setUp() {
+        propertyAssessments = PropertyAssessments.columnar();
+        int[] values = {300000, 100000, 200000};
+        for (int i = 0; i < values.length; i++) {
+            propertyAssessments.addPropertyAssessment(new PropertyAssessment(1000 + i, new Address("", "1", "MAIN STREET"),
+                    values[i], "RESIDENTIAL", Neighbourhood.of(1, "DOWNTOWN", "Ward 6"), "N", new Location(53.5, -113.5)));
+        }
+        rows = new AssessmentRowList();
+        rows.setAssessments(propertyAssessments);
+    }
+
+    @Test
+    void testRows() {
+        assertEquals(3, rows.size());
+        assertEquals(1001, rows.get(1).getAccountNum());
+    }
+
+    @Test
+    void testSort() {
+        int[] changes = new int[1];
+        rows.addListener((ListChangeListener<PropertyAssessment>) change -> {
+            while (change.next()) {
+                assertTrue(change.wasPermutated());
+                changes[0]++;
+            }
+        });
+        rows.sort(Comparator.comparingInt(PropertyAssessment::getValue));
+        assertEquals(1001, rows.get(0).getAccountNum());
+        assertEquals(1002, rows.get(1).getAccountNum());
+        assertEquals(1000, rows.get(2).getAccountNum());
+        rows.sort(null);
+        assertEquals(1000, rows.get(0).getAccountNum());
+        assertEquals(2, changes[0]);
+    }
+
+    @Test
+    void testSetAssessments() {
+        rows.sort(Comparator.comparingInt(PropertyAssessment::getValue));
+        rows.setAssessments(propertyAssessments.getAssessmentsByAccount("1002"));
+        assertEquals(1, rows.size());
+        assertEquals(1002, rows.get(0).getAccountNum());
+    }
+}
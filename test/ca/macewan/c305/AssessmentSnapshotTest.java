@@ -0,0 +1,106 @@
+package ca.macewan.c305;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AssessmentSnapshotTest {
+    @TempDir
+    Path directory;
+    private String filename;
+    private PropertyAssessments loaded;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path csv = directory.resolve("assessments.csv");
+        Files.writeString(csv, "Account Number,Suite,House Number,Street Name,Assessed Value,Assessment Class,"
+                + "Neighbourhood ID,Neighbourhood,Ward,Garage,Latitude,Longitude\n"
+                + "1000,,10,JASPER AVENUE NW,250000,Residential,1010,DOWNTOWN,Ward 1,Y,53.5,-113.5\n"
+                + "1001,2,11,JASPER AVENUE NW,125000,Residential,1010,DOWNTOWN,Ward 1,N,53.51,-113.51\n"
+                + "1002,,\"12, REAR\",CAF\u00c9 STREET NW,980000,Commercial,1020,GARNEAU,Ward 2,N,53.52,-113.52\n");
+        filename = csv.toString();
+        loaded = AssessmentLoader.load(filename);
+    }
+
+    @Test
+    void testReadBack() throws IOException {
+        AssessmentSnapshot.of(filename).write(loaded);
+        PropertyAssessments read = AssessmentSnapshot.of(filename).read();
+        assertNotNull(read);
+        assertEquals(loaded.getPopulation(), read.getPopulation());
+        for (int i = 0; i < loaded.getPopulation(); i++) {
+            PropertyAssessment expected = loaded.getPropertyAssessments().get(i);
+            PropertyAssessment actual = read.getPropertyAssessments().get(i);
+            assertEquals(expected.toString(), actual.toString());
+            assertEquals(expected.getLatitude(), actual.getLatitude());
+            assertEquals(expected.getLongitude(), actual.getLongitude());
+        }
+        assertEquals(loaded.getWardSet(), read.getWardSet());
+        assertEquals(loaded.getNeighborhoodSet(), read.getNeighborhoodSet());
+        assertEquals(loaded.getClassSet(), read.getClassSet());
+        assertEquals(loaded.getMean(), read.getMean());
+        assertEquals(2, read.getAssessmentsByWard("Ward 1").getPopulation());
+        assertEquals(1001, read.getPropertyAssessment(1001).getAccountNum());
+    }
+
+    @Test
+    void testColumnarLoad() throws IOException {
+        // Parsed straight into the columns, the rows must read back the same as the objects
+        PropertyAssessments columnar = PropertyAssessments.columnar();
+        AssessmentLoader.load(filename, columnar);
+        assertEquals(loaded.getPopulation(), columnar.getPopulation());
+        for (int i = 0; i < loaded.getPopulation(); i++) {
+            assertEquals(loaded.getPropertyAssessments().get(i).toString(), columnar.getPropertyAssessments().get(i).toString());
+        }
+        assertEquals("12, REAR CAF\u00c9 STREET NW", columnar.getColumns().getAddressText(2));
+        assertEquals(loaded.getWardSet(), columnar.getWardSet());
+        assertEquals(loaded.getNeighborhoodSet(), columnar.getNeighborhoodSet());
+        assertEquals(loaded.getClassSet(), columnar.getClassSet());
+        assertEquals(loaded.getMean(), columnar.getMean());
+    }
+
+    @Test
+    void testMissing() throws IOException {
+        assertNull(AssessmentSnapshot.of(filename).read());
+    }
+
+    @Test
+    void testStale() throws IOException {
+        AssessmentSnapshot.of(filename).write(loaded);
+        Files.writeString(Path.of(filename), "1003,,13,JASPER AVENUE NW,1,Residential,1010,DOWNTOWN,Ward 1,Y,53.5,-113.5\n",
+                StandardOpenOption.APPEND);
+        assertNull(AssessmentSnapshot.of(filename).read());
+    }
+
+    @Test
+    void testDamaged() throws IOException {
+        AssessmentSnapshot snapshot = AssessmentSnapshot.of(filename);
+        snapshot.write(loaded);
+        byte[] bytes = Files.readAllBytes(snapshot.getPath());
+        Files.write(snapshot.getPath(), Arrays.copyOf(bytes, bytes.length - 5));
+        assertNull(AssessmentSnapshot.of(filename).read());
+    }
+
+    @Test
+    void testCorrupted() throws IOException {
+        AssessmentSnapshot snapshot = AssessmentSnapshot.of(filename);
+        snapshot.write(loaded);
+        byte[] bytes = Files.readAllBytes(snapshot.getPath());
+        // The row count, the first field after the header, made huge
+        bytes[43] = 0x7f;
+        Files.write(snapshot.getPath(), bytes);
+        assertNull(AssessmentSnapshot.of(filename).read());
+        bytes[43] = 0;
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(snapshot.getPath(), bytes);
+        assertNull(AssessmentSnapshot.of(filename).read());
+    }
+}
@@ -0,0 +1,97 @@
+package ca.macewan.c305;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CodeStatisticsTest {
+    private CodeStatistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = new CodeStatistics();
+        statistics.add(0, 100);
+        statistics.add(0, 300);
+        statistics.add(20, 50);
+    }
+
+    @Test
+    void testGet() {
+        StatisticsAccumulator first = statistics.get(0);
+        assertEquals(2, first.getCount());
+        assertEquals(200, first.getMean());
+        assertEquals(10000, first.getVariance(), 1e-9);
+        assertEquals(50, statistics.get(20).getMin());
+        assertEquals(0, statistics.get(5).getCount());
+        assertEquals(0, statistics.getCount(1000));
+    }
+
+    @Test
+    void testGetReturnsCopy() {
+        statistics.get(0).add(1000000);
+        assertEquals(2, statistics.getCount(0));
+    }
+
+    @Test
+    void testCombine() {
+        CodeStatistics other = new CodeStatistics();
+        other.add(0, 200);
+        other.add(40, 7);
+        statistics.combine(other);
+        assertEquals(3, statistics.getCount(0));
+        assertEquals(600, statistics.get(0).getSum());
+        assertEquals(1, statistics.getCount(40));
+    }
+
+    @Test
+    void testColumnsKeepStatistics() {
+        AssessmentColumns columns = new AssessmentColumns();
+        AssessmentColumns more = new AssessmentColumns();
+        Neighbourhood neighbourhood = Neighbourhood.of(1, "DOWNTOWN", "Ward 6");
+        int[] values = {250000, 310000, 180000, 999000, 5000};
+        for (int i = 0; i < values.length; i++) {
+            PropertyAssessment assessment = new PropertyAssessment(i, new Address("", "1", "MAIN STREET"),
+                    values[i], "RESIDENTIAL", neighbourhood, "N", new Location(53.5, -113.5));
+            (i < 2 ? columns : more).add(assessment);
+        }
+        columns.addAll(more);
+        // The stores have their own address dictionaries, so the merged rows are encoded again
+        assertEquals("1 MAIN STREET", columns.getAddressText(4));
+
+        StatisticsSummary expected = StatisticsSummary.of(values, values.length);
+        StatisticsAccumulator kept = columns.getValueStatistics();
+        assertEquals(expected.getCount(), kept.getCount());
+        assertEquals(expected.getSum(), kept.getSum());
+        assertEquals(expected.getMin(), kept.getMin());
+        assertEquals(expected.getMax(), kept.getMax());
+        assertEquals(expected.getVariance(), kept.getVariance(), 1e-3);
+        int ward = AssessmentColumns.WARDS.getCode("Ward 6");
+        assertEquals(expected.getSum(), columns.getWardStatistics(ward).getSum());
+
+        columns.clear();
+        assertEquals(0, columns.getValueStatistics().getCount());
+        assertEquals(0, columns.getWardStatistics(ward).getCount());
+    }
+
+    @Test
+    void testGroupByWard() {
+        PropertyAssessments assessments = PropertyAssessments.columnar();
+        String[] wards = {"Ward 2", "Ward 1", "Ward 2", "Ward 10"};
+        int[] values = {100, 200, 300, 400};
+        for (int i = 0; i < wards.length; i++) {
+            assessments.addPropertyAssessment(new PropertyAssessment(i, new Address("", "1", "MAIN STREET"),
+                    values[i], "RESIDENTIAL", Neighbourhood.of(i, "N" + i, wards[i]), "N", new Location(0, 0)));
+        }
+        Map<String, StatisticsAccumulator> byWard = assessments.getStatisticsByWard();
+        assertEquals(List.of("Ward 1", "Ward 10", "Ward 2"), List.copyOf(byWard.keySet()));
+        assertEquals(2, byWard.get("Ward 2").getCount());
+        assertEquals(200, byWard.get("Ward 2").getMean());
+        assertEquals(assessments.getAssessmentsByWard("Ward 2").getMean(), (int) byWard.get("Ward 2").getMean());
+        assertEquals(4, assessments.getStatisticsByNeighbourhood().size());
+        assertEquals(4, assessments.getStatisticsByClass().get("RESIDENTIAL").getCount());
+    }
+}
@@ -0,0 +1,65 @@
+package ca.macewan.c305;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvTokenizerTest {
+    private CsvTokenizer tokens;
+
+    @BeforeEach
+    void setUp() {
+        tokens = new CsvTokenizer();
+    }
+
+    @Test
+    void testFields() {
+        tokens.reset("1066158,,10,ORCHID CRESCENT,316500,Residential,,SHERWOOD PARK,Ward 100,Y,53.54,-113.49\r");
+        assertEquals(12, tokens.getFieldCount());
+        assertTrue(tokens.isEmpty(1));
+        assertEquals("ORCHID CRESCENT", tokens.getString(3));
+        assertEquals("Y", tokens.getString(9));
+    }
+
+    @Test
+    void testQuotedFields() {
+        tokens.reset("1,\"MAIN, STREET\",\"say \"\"hi\"\"\",,\"\"");
+        assertEquals(5, tokens.getFieldCount());
+        assertEquals("MAIN, STREET", tokens.getString(1));
+        assertEquals("say \"hi\"", tokens.getString(2));
+        assertTrue(tokens.isEmpty(3));
+        assertTrue(tokens.isEmpty(4));
+    }
+
+    @Test
+    void testGetInt() {
+        tokens.reset("316500,-42,2147483647,-2147483648,2147483648,12a,");
+        assertEquals(316500, tokens.getInt(0));
+        assertEquals(-42, tokens.getInt(1));
+        assertEquals(Integer.MAX_VALUE, tokens.getInt(2));
+        assertEquals(Integer.MIN_VALUE, tokens.getInt(3));
+        assertThrows(NumberFormatException.class, () -> tokens.getInt(4));
+        assertThrows(NumberFormatException.class, () -> tokens.getInt(5));
+        assertThrows(NumberFormatException.class, () -> tokens.getInt(6));
+    }
+
+    @Test
+    void testGetDouble() {
+        String[] values = {"53.4087290046276", "-113.586273013139", "0.05", "100", "1.5e3",
+                "53.690326772827234", "-0.0"};
+        tokens.reset(String.join(",", values));
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(Double.parseDouble(values[i]), tokens.getDouble(i));
+        }
+        tokens.reset("abc,");
+        assertThrows(NumberFormatException.class, () -> tokens.getDouble(0));
+        assertThrows(NumberFormatException.class, () -> tokens.getDouble(1));
+    }
+
+    @Test
+    void testMissingField() {
+        tokens.reset("only,three,fields");
+        assertThrows(IndexOutOfBoundsException.class, () -> tokens.getString(3));
+    }
+}
@@ -0,0 +1,95 @@
+package ca.macewan.c305;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeatmapGridTest {
+    private AssessmentColumns columns;
+
+    @BeforeEach
+    void setUp() {
+        columns = new AssessmentColumns();
+    }
+
+    private void add(double latitude, double longitude, int value) {
+        columns.add(new PropertyAssessment(1000 + columns.size(), new Address("", "1", "MAIN STREET"), value,
+                "RESIDENTIAL", Neighbourhood.of(1, "DOWNTOWN", "Ward 6"), "N", new Location(latitude, longitude)));
+    }
+
+    @Test
+    void testSinglePoint() {
+        // The centre of cell 10, 10 of a 21x21 grid over one degree
+        add(53.5, -113.5, 1000);
+        HeatmapGrid grid = HeatmapGrid.render(columns, 53.0, -114.0, 54.0, -113.0, 21, 21, 2);
+        assertEquals(grid.getMax(), grid.getDensity(10, 10));
+        assertEquals(grid.getDensity(8, 10), grid.getDensity(12, 10), 1e-9);
+        assertTrue(grid.getDensity(8, 10) < grid.getDensity(9, 10));
+        double total = 0;
+        for (int y = 0; y < grid.getHeight(); y++) {
+            for (int x = 0; x < grid.getWidth(); x++) {
+                total += grid.getDensity(x, y);
+            }
+        }
+        assertEquals(1000, total, 1e-6);
+    }
+
+    private static double maxOf(HeatmapGrid grid, int fromX, int fromY, int toX, int toY) {
+        double max = 0;
+        for (int y = fromY; y < toY; y++) {
+            for (int x = fromX; x < toX; x++) {
+                max = Math.max(max, grid.getDensity(x, y));
+            }
+        }
+        return max;
+    }
+
+    @Test
+    void testWeightedByValue() {
+        add(53.25, -113.75, 1000);
+        add(53.75, -113.25, 3000);
+        HeatmapGrid grid = HeatmapGrid.render(columns, 53.0, -114.0, 54.0, -113.0, 40, 40, 1);
+        // Rows run from north to south, so the north east point is in the top right quarter
+        double northEast = maxOf(grid, 20, 0, 40, 20);
+        double southWest = maxOf(grid, 0, 20, 20, 40);
+        assertEquals(grid.getMax(), northEast);
+        assertEquals(3, northEast / southWest, 0.5);
+        assertEquals(0, maxOf(grid, 0, 0, 20, 20));
+    }
+
+    @Test
+    void testOutsideArea() {
+        add(10, 10, 1000);
+        HeatmapGrid grid = HeatmapGrid.render(columns, 53.0, -114.0, 54.0, -113.0, 10, 10, 1);
+        assertEquals(0, grid.getMax());
+        assertEquals(0, grid.toArgb()[0]);
+    }
+
+    @Test
+    void testNearEdge() {
+        // Just outside the area, but close enough to spread into it
+        add(53.5, -114.01, 1000);
+        HeatmapGrid grid = HeatmapGrid.render(columns, 53.0, -114.0, 54.0, -113.0, 100, 100, 3);
+        assertTrue(grid.getDensity(0, 50) > 0);
+    }
+
+    @Test
+    void testArgb() {
+        add(53.5, -113.5, 1000);
+        HeatmapGrid grid = HeatmapGrid.render(columns, 53.0, -114.0, 54.0, -113.0, 21, 21, 2);
+        int[] pixels = grid.toArgb();
+        assertEquals(21 * 21, pixels.length);
+        assertEquals(0xffff0000, pixels[10 * 21 + 10]);
+        assertEquals(0, pixels[0] >>> 24);
+        assertTrue(grid.toPng().length > 0);
+    }
+
+    @Test
+    void testBadArea() {
+        assertThrows(IllegalArgumentException.class,
+                () -> HeatmapGrid.render(columns, 54.0, -114.0, 53.0, -113.0, 10, 10, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> HeatmapGrid.render(columns, 53.0, -114.0, 54.0, -113.0, 0, 10, 1));
+    }
+}
@@ -0,0 +1,61 @@
+package ca.macewan.c305;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistogramTest {
+    private int[] values;
+
+    @BeforeEach
+    void setUp() {
+        values = new int[] {5, 10, 10, 99, 100, 150, 1000, 20000};
+    }
+
+    @Test
+    void testWithEdges() {
+        Histogram histogram = Histogram.withEdges(values, values.length, 10, 100, 1000);
+        assertEquals(2, histogram.getBinCount());
+        assertEquals(3, histogram.getCount(0)); // 10, 10, 99
+        assertEquals(2, histogram.getCount(1)); // 100, 150
+        assertEquals(1, histogram.getBelow());
+        assertEquals(2, histogram.getAbove());
+    }
+
+    @Test
+    void testEqualEdges() {
+        Histogram histogram = Histogram.withEdges(values, values.length, Double.NEGATIVE_INFINITY, 100, 100, 200);
+        assertEquals(4, histogram.getCount(0));
+        assertEquals(0, histogram.getCount(1));
+        assertEquals(2, histogram.getCount(2));
+        assertThrows(IllegalArgumentException.class, () -> Histogram.withEdges(values, values.length, 5, 1));
+    }
+
+    @Test
+    void testFixedWidth() {
+        Histogram histogram = Histogram.fixedWidth(values, values.length, 4);
+        assertEquals(5, histogram.getLower(0));
+        assertEquals(values.length - 1, histogram.getCount(0));
+        assertEquals(1, histogram.getCount(3)); // the largest value is in the last bin
+        assertEquals(0, histogram.getAbove());
+    }
+
+    @Test
+    void testLogScale() {
+        Histogram histogram = Histogram.logScale(values, values.length, 4);
+        int total = 0;
+        for (int bin = 0; bin < histogram.getBinCount(); bin++) {
+            total += histogram.getCount(bin);
+        }
+        assertEquals(values.length, total);
+        assertEquals(histogram.getUpper(0) / histogram.getLower(0), histogram.getUpper(2) / histogram.getLower(2), 1e-9);
+    }
+
+    @Test
+    void testQuantileBins() {
+        Histogram histogram = Histogram.quantileBins(values, values.length, 2);
+        assertEquals(4, histogram.getCount(0));
+        assertEquals(4, histogram.getCount(1));
+    }
+}
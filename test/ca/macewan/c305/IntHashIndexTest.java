@@ -0,0 +1,51 @@
+package ca.macewan.c305;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntHashIndexTest {
+    private IntHashIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new IntHashIndex();
+    }
+
+    @Test
+    void testGet() {
+        for (int i = 0; i < 10000; i++) {
+            index.put(1000000 + i * 7, i);
+        }
+        assertEquals(10000, index.size());
+        assertEquals(0, index.get(1000000));
+        assertEquals(9999, index.get(1000000 + 9999 * 7));
+        assertEquals(IntHashIndex.NOT_FOUND, index.get(1000001));
+        assertEquals(IntHashIndex.NOT_FOUND, index.get(0));
+    }
+
+    @Test
+    void testKeepsFirstRow() {
+        index.put(42, 3);
+        index.put(42, 8);
+        assertEquals(1, index.size());
+        assertEquals(3, index.get(42));
+    }
+
+    @Test
+    void testNegativeKeys() {
+        index.put(-5, 0);
+        index.put(Integer.MIN_VALUE, 1);
+        assertEquals(0, index.get(-5));
+        assertEquals(1, index.get(Integer.MIN_VALUE));
+    }
+
+    @Test
+    void testClear() {
+        index.put(42, 3);
+        index.clear();
+        assertEquals(0, index.size());
+        assertEquals(IntHashIndex.NOT_FOUND, index.get(42));
+    }
+}
@@ -0,0 +1,52 @@
+package ca.macewan.c305;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PackedPointsTest {
+    private AssessmentColumns columns;
+
+    @BeforeEach
+    void setUp() {
+        columns = new AssessmentColumns();
+        Neighbourhood neighbourhood = Neighbourhood.of(1, "DOWNTOWN", "Ward 6");
+        Address address = new Address("", "10130", "105 STREET NW");
+        columns.add(new PropertyAssessment(1000, address, 250000, "RESIDENTIAL",
+                neighbourhood, "N", new Location(53.5, -113.5)));
+        columns.add(new PropertyAssessment(1001, address, 125000, "RESIDENTIAL",
+                neighbourhood, "N", new Location(53.546123456789, -113.493812345678)));
+        columns.add(new PropertyAssessment(1002, address, 980000, "RESIDENTIAL",
+                neighbourhood, "N", new Location(53.6, -113.4)));
+    }
+
+    @Test
+    void testEncode() {
+        ByteBuffer buffer = ByteBuffer.wrap(Base64.getDecoder().decode(PackedPoints.encode(columns, 0, 3)))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(3 * PackedPoints.BYTES_PER_POINT, buffer.capacity());
+        assertEquals(53.5, buffer.getDouble(0));
+        assertEquals(53.546123456789, buffer.getDouble(8));
+        assertEquals(-113.493812345678, buffer.getDouble(3 * 8 + 8));
+        assertEquals(-113.4, buffer.getDouble(3 * 8 + 16));
+        assertEquals(250000, buffer.getInt(3 * 16));
+        assertEquals(980000, buffer.getInt(3 * 16 + 8));
+    }
+
+    @Test
+    void testEncodeRange() {
+        ByteBuffer buffer = ByteBuffer.wrap(Base64.getDecoder().decode(PackedPoints.encode(columns, 1, 3)))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(2 * PackedPoints.BYTES_PER_POINT, buffer.capacity());
+        assertEquals(53.546123456789, buffer.getDouble(0));
+        assertEquals(-113.4, buffer.getDouble(2 * 8 + 8));
+        assertEquals(125000, buffer.getInt(2 * 16));
+        assertEquals("", PackedPoints.encode(columns, 3, 3));
+        assertThrows(IndexOutOfBoundsException.class, () -> PackedPoints.encode(columns, 2, 4));
+    }
+}
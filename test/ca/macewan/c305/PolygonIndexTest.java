@@ -0,0 +1,120 @@
+package ca.macewan.c305;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PolygonIndexTest {
+    // An L shape: the square 53 to 54, -114 to -113 without its north east quarter
+    private static final double[] L_SHAPE = {
+            53, -114, 53, -113, 53.5, -113, 53.5, -113.5, 54, -113.5, 54, -114};
+    private PolygonIndex polygon;
+
+    @BeforeEach
+    void setUp() {
+        polygon = new PolygonIndex(L_SHAPE);
+    }
+
+    /**
+     * Tests a point against every edge, without buckets
+     */
+    private static boolean bruteForceContains(double[] corners, double latitude, double longitude) {
+        boolean inside = false;
+        int count = corners.length / 2;
+        for (int i = 0, j = count - 1; i < count; j = i++) {
+            double latitude1 = corners[2 * i], longitude1 = corners[2 * i + 1];
+            double latitude2 = corners[2 * j], longitude2 = corners[2 * j + 1];
+            if ((latitude1 > latitude) != (latitude2 > latitude)
+                    && longitude < longitude1 + (latitude - latitude1) * (longitude2 - longitude1) / (latitude2 - latitude1)) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    @Test
+    void testContains() {
+        assertTrue(polygon.contains(53.25, -113.25));
+        assertTrue(polygon.contains(53.75, -113.75));
+        assertFalse(polygon.contains(53.75, -113.25)); // the missing quarter
+        assertFalse(polygon.contains(52.9, -113.5));
+        assertFalse(polygon.contains(53.5, -112));
+        assertTrue(polygon.contains(new Location(53.1, -113.9)));
+    }
+
+    @Test
+    void testMatchesBruteForce() {
+        // A star with many corners, so points fall in many buckets
+        int corners = 200;
+        double[] star = new double[2 * corners];
+        for (int i = 0; i < corners; i++) {
+            double radius = i % 2 == 0 ? 0.1 : 0.04;
+            double angle = 2 * Math.PI * i / corners;
+            star[2 * i] = 53.5 + radius * Math.sin(angle);
+            star[2 * i + 1] = -113.5 + radius * Math.cos(angle);
+        }
+        PolygonIndex index = new PolygonIndex(star);
+        Random random = new Random(305);
+        for (int i = 0; i < 20000; i++) {
+            double latitude = 53.38 + random.nextDouble() * 0.24;
+            double longitude = -113.62 + random.nextDouble() * 0.24;
+            assertEquals(bruteForceContains(star, latitude, longitude), index.contains(latitude, longitude));
+        }
+    }
+
+    @Test
+    void testFindRows() {
+        AssessmentColumns columns = new AssessmentColumns();
+        Random random = new Random(305);
+        for (int i = 0; i < 2000; i++) {
+            add(columns, 52.5 + random.nextDouble() * 2, -114.5 + random.nextDouble() * 2, "Ward 1");
+        }
+        int[] expected = IntStream.range(0, columns.size())
+                .filter(row -> bruteForceContains(L_SHAPE, columns.getLatitude(row), columns.getLongitude(row)))
+                .toArray();
+        assertArrayEquals(expected, polygon.findRows(columns));
+        assertTrue(expected.length > 0);
+    }
+
+    @Test
+    void testOfLocations() {
+        PolygonIndex triangle = PolygonIndex.of(List.of(
+                new Location(53, -114), new Location(53, -113), new Location(54, -113.5)));
+        assertTrue(triangle.contains(53.2, -113.5));
+        assertFalse(triangle.contains(53.9, -113.9));
+        assertThrows(IllegalArgumentException.class,
+                () -> PolygonIndex.of(List.of(new Location(53, -114), new Location(53, -113))));
+    }
+
+    @Test
+    void testMismatches() {
+        Map<String, Boundary> wards = new HashMap<>();
+        wards.put("WARD 1", new Boundary("WARD 1", new double[]{53, -114, 53, -113.5, 54, -113.5, 54, -114}));
+        wards.put("WARD 2", new Boundary("WARD 2", new double[]{53, -113.5, 53, -113, 54, -113, 54, -113.5}));
+        BoundaryClassifier classifier = BoundaryClassifier.of(wards, true);
+
+        AssessmentColumns columns = new AssessmentColumns();
+        add(columns, 53.5, -113.75, "Ward 1");
+        add(columns, 53.5, -113.25, "Ward 1"); // in ward 2
+        add(columns, 53.5, -113.25, "Ward 2");
+        add(columns, 50, -100, "Ward 2"); // outside both
+        add(columns, 53.5, -113.75, "Ward 9"); // no boundary
+
+        assertArrayEquals(new int[]{0, 1, 1, BoundaryClassifier.NONE, 0}, classifier.classify(columns));
+        assertArrayEquals(new int[]{1}, classifier.findMismatches(columns));
+        assertEquals("WARD 2", classifier.locate(new Location(53.5, -113.25)));
+        assertNull(classifier.locate(new Location(50, -100)));
+    }
+
+    private static void add(AssessmentColumns columns, double latitude, double longitude, String ward) {
+        columns.add(new PropertyAssessment(1000 + columns.size(), new Address("", "1", "MAIN STREET"), 1000,
+                "RESIDENTIAL", Neighbourhood.of(1, "DOWNTOWN", ward), "N", new Location(latitude, longitude)));
+    }
+}
@@ -0,0 +1,91 @@
+package ca.macewan.c305;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PolylineSimplifierTest {
+    // A closed, wobbly ring about 2 km across with 2000 points
+    private double[] ring;
+
+    @BeforeEach
+    void setUp() {
+        Random random = new Random(305);
+        int count = 2000;
+        ring = new double[2 * count + 2];
+        for (int i = 0; i < count; i++) {
+            double angle = 2 * Math.PI * i / count;
+            double radius = 0.01 * (1 + 0.05 * Math.sin(7 * angle)) + random.nextGaussian() * 0.00001;
+            ring[2 * i] = 53.5 + radius * Math.sin(angle);
+            ring[2 * i + 1] = -113.5 + radius * Math.cos(angle) / Math.cos(Math.toRadians(53.5));
+        }
+        ring[2 * count] = ring[0];
+        ring[2 * count + 1] = ring[1];
+    }
+
+    @Test
+    void testStraightLine() {
+        double[] line = {53.0, -113.0, 53.1, -113.0, 53.2, -113.0, 53.3, -113.0};
+        assertArrayEquals(new double[]{53.0, -113.0, 53.3, -113.0}, PolylineSimplifier.simplify(line, 1));
+    }
+
+    @Test
+    void testKeepsCorner() {
+        // The middle point is about 66 metres off the line between the others
+        double[] line = {53.0, -113.0, 53.0006, -112.999, 53.0, -112.998};
+        assertEquals(4, PolylineSimplifier.simplify(line, 100).length);
+        assertArrayEquals(line, PolylineSimplifier.simplify(line, 50));
+    }
+
+    @Test
+    void testRing() {
+        double[] simplified = PolylineSimplifier.simplify(ring, 1e6);
+        // A ring keeps its first, last and farthest point however large the tolerance
+        assertEquals(6, simplified.length);
+        assertEquals(ring[0], simplified[0]);
+        assertEquals(ring[ring.length - 1], simplified[simplified.length - 1]);
+    }
+
+    @Test
+    void testWithinTolerance() {
+        double tolerance = 5;
+        double[] simplified = PolylineSimplifier.simplify(ring, tolerance);
+        assertTrue(simplified.length < ring.length / 4);
+        // Every point of the ring is within the tolerance of some segment of the simplified ring
+        for (int i = 0; i < ring.length; i += 2) {
+            double nearest = Double.POSITIVE_INFINITY;
+            for (int j = 0; j + 3 < simplified.length; j += 2) {
+                nearest = Math.min(nearest, distanceToSegment(ring[i], ring[i + 1],
+                        simplified[j], simplified[j + 1], simplified[j + 2], simplified[j + 3]));
+            }
+            assertTrue(nearest <= tolerance + 0.01, "point " + i / 2 + " is " + nearest + " m away");
+        }
+    }
+
+    @Test
+    void testBoundaryLevels() {
+        Boundary boundary = new Boundary("RING", ring);
+        int previous = 0;
+        for (int zoom : new int[]{8, 10, 12, 14, 16, 18}) {
+            int points = boundary.getCoordinates(zoom).length / 2;
+            assertTrue(points >= previous, "zoom " + zoom);
+            previous = points;
+        }
+        assertTrue(boundary.getCoordinates(10).length < boundary.getCoordinates(16).length);
+        assertArrayEquals(ring, boundary.getCoordinates(18));
+    }
+
+    private static double distanceToSegment(double latitude, double longitude, double latitude1, double longitude1,
+                                            double latitude2, double longitude2) {
+        double metresPerLongitude = Math.cos(Math.toRadians(latitude)) * 111195;
+        double px = longitude * metresPerLongitude, py = latitude * 111195;
+        double ax = longitude1 * metresPerLongitude, ay = latitude1 * 111195;
+        double bx = longitude2 * metresPerLongitude, by = latitude2 * 111195;
+        double dx = bx - ax, dy = by - ay;
+        double t = Math.max(0, Math.min(1, ((px - ax) * dx + (py - ay) * dy) / (dx * dx + dy * dy)));
+        return Math.hypot(px - ax - t * dx, py - ay - t * dy);
+    }
+}
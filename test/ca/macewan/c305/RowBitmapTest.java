@@ -0,0 +1,73 @@
+package ca.macewan.c305;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RowBitmapTest {
+    private static final int ROWS = 300000;
+
+    private boolean[] sparse;
+    private boolean[] dense;
+
+    @BeforeEach
+    void setUp() {
+        // Sparse rows make array chunks, dense rows make bitmap chunks
+        Random random = new Random(305);
+        sparse = new boolean[ROWS];
+        dense = new boolean[ROWS];
+        for (int row = 0; row < ROWS; row++) {
+            sparse[row] = random.nextInt(50) == 0;
+            dense[row] = row < 140000 ? random.nextInt(3) != 0 : random.nextInt(20) == 0;
+        }
+    }
+
+    private static int[] rowsOf(boolean[] set) {
+        return IntStream.range(0, set.length).filter(row -> set[row]).toArray();
+    }
+
+    @Test
+    void testOf() {
+        RowBitmap bitmap = RowBitmap.of(rowsOf(dense));
+        assertArrayEquals(rowsOf(dense), bitmap.toArray());
+        assertEquals(rowsOf(dense).length, bitmap.cardinality());
+        for (int row = 0; row < ROWS; row += 97) {
+            assertEquals(dense[row], bitmap.contains(row));
+        }
+    }
+
+    @Test
+    void testAnd() {
+        boolean[] both = new boolean[ROWS];
+        for (int row = 0; row < ROWS; row++) {
+            both[row] = sparse[row] && dense[row];
+        }
+        RowBitmap result = RowBitmap.of(rowsOf(sparse)).and(RowBitmap.of(rowsOf(dense)));
+        assertArrayEquals(rowsOf(both), result.toArray());
+        assertEquals(rowsOf(both).length, result.cardinality());
+        assertArrayEquals(rowsOf(dense), RowBitmap.of(rowsOf(dense)).and(RowBitmap.range(ROWS)).toArray());
+    }
+
+    @Test
+    void testOr() {
+        boolean[] either = new boolean[ROWS];
+        for (int row = 0; row < ROWS; row++) {
+            either[row] = sparse[row] || dense[row];
+        }
+        RowBitmap result = RowBitmap.of(rowsOf(sparse)).or(RowBitmap.of(rowsOf(dense)));
+        assertArrayEquals(rowsOf(either), result.toArray());
+        assertEquals(rowsOf(either).length, result.cardinality());
+    }
+
+    @Test
+    void testRange() {
+        assertArrayEquals(IntStream.range(0, 70000).toArray(), RowBitmap.range(70000).toArray());
+        assertArrayEquals(new int[] {0, 1, 2}, RowBitmap.range(3).toArray());
+        assertTrue(RowBitmap.range(0).isEmpty());
+        assertTrue(RowBitmap.range(10).and(RowBitmap.empty()).isEmpty());
+    }
+}
@@ -0,0 +1,48 @@
+package ca.macewan.c305;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RowPostingsTest {
+    private RowPostings postings;
+
+    @BeforeEach
+    void setUp() {
+        postings = new RowPostings();
+        int[] codes = {0, 2, 0, 1, 2, 40, 0};
+        for (int row = 0; row < codes.length; row++) {
+            postings.add(codes[row], row);
+        }
+    }
+
+    @Test
+    void testSingleCode() {
+        assertArrayEquals(new int[] {0, 2, 6}, postings.findRows(new boolean[] {true, false, false}));
+        assertEquals(3, postings.size(0));
+        assertEquals(0, postings.size(100));
+    }
+
+    @Test
+    void testSeveralCodesAreMerged() {
+        assertArrayEquals(new int[] {1, 3, 4}, postings.findRows(new boolean[] {false, true, true}));
+        boolean[] all = new boolean[41];
+        Arrays.fill(all, true);
+        assertArrayEquals(new int[] {0, 1, 2, 3, 4, 5, 6}, postings.findRows(all));
+    }
+
+    @Test
+    void testShortMatches() {
+        // Codes beyond the end of the matches array are not matched
+        assertArrayEquals(new int[] {3}, postings.findRows(new boolean[] {false, true}));
+    }
+
+    @Test
+    void testClear() {
+        postings.clear();
+        assertEquals(0, postings.findRows(new boolean[] {true, true, true}).length);
+    }
+}
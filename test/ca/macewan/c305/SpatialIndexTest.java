@@ -0,0 +1,114 @@
+package ca.macewan.c305;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpatialIndexTest {
+    private AssessmentColumns columns;
+
+    @BeforeEach
+    void setUp() {
+        columns = new AssessmentColumns();
+        Random random = new Random(305);
+        for (int i = 0; i < 5000; i++) {
+            // Clustered like a city, with a few rows far away
+            double latitude = 53.55 + random.nextGaussian() * 0.05;
+            double longitude = -113.5 + random.nextGaussian() * 0.08;
+            if (i % 1000 == 0) {
+                latitude = 49 + random.nextDouble();
+                longitude = -120 + random.nextDouble();
+            }
+            add(latitude, longitude);
+        }
+        add(53.55, -113.5); // same location as the next row
+        add(53.55, -113.5);
+    }
+
+    private void add(double latitude, double longitude) {
+        columns.add(new PropertyAssessment(1000 + columns.size(), new Address("", "1", "MAIN STREET"), 1000,
+                "RESIDENTIAL", Neighbourhood.of(1, "DOWNTOWN", "Ward 6"), "N", new Location(latitude, longitude)));
+    }
+
+    private double distance(Location location, int row) {
+        return SpatialIndex.distanceMetres(location.getLatitude(), location.getLongitude(),
+                columns.getLatitude(row), columns.getLongitude(row));
+    }
+
+    @Test
+    void testFindWithin() {
+        SpatialIndex index = columns.getSpatialIndex();
+        double[][] boxes = {{53.5, -113.6, 53.6, -113.4}, {53.55, -113.5, 53.55, -113.5},
+                {0, -180, 90, 0}, {10, 10, 11, 11}, {53.6, -113.4, 53.5, -113.6}};
+        for (double[] box : boxes) {
+            int[] expected = IntStream.range(0, columns.size())
+                    .filter(row -> columns.getLatitude(row) >= box[0] && columns.getLatitude(row) <= box[2]
+                            && columns.getLongitude(row) >= box[1] && columns.getLongitude(row) <= box[3])
+                    .toArray();
+            assertArrayEquals(expected, index.findWithin(box[0], box[1], box[2], box[3]));
+        }
+        assertEquals(2, index.findWithin(53.55, -113.5, 53.55, -113.5).length);
+    }
+
+    @Test
+    void testFindWithinRadius() {
+        SpatialIndex index = columns.getSpatialIndex();
+        Location[] centres = {new Location(53.55, -113.5), new Location(53.4, -113.7), new Location(49.5, -119.5)};
+        for (Location centre : centres) {
+            for (double metres : new double[]{0, 250, 2000, 50000, 1e6}) {
+                int[] expected = IntStream.range(0, columns.size())
+                        .filter(row -> distance(centre, row) <= metres)
+                        .toArray();
+                assertArrayEquals(expected, index.findWithinRadius(centre, metres));
+            }
+        }
+    }
+
+    @Test
+    void testNearestK() {
+        SpatialIndex index = columns.getSpatialIndex();
+        Location[] centres = {new Location(53.55, -113.5), new Location(53.7, -113.2),
+                new Location(10, 10), new Location(49.5, -119.5)};
+        for (Location centre : centres) {
+            for (int k : new int[]{1, 2, 10, 100}) {
+                int[] expected = IntStream.range(0, columns.size()).boxed()
+                        .sorted(Comparator.comparingDouble((Integer row) -> distance(centre, row)).thenComparing(row -> row))
+                        .limit(k)
+                        .mapToInt(Integer::intValue)
+                        .toArray();
+                assertArrayEquals(expected, index.nearestK(centre, k));
+            }
+        }
+        assertEquals(columns.size(), index.nearestK(new Location(53.55, -113.5), 10000).length);
+        assertEquals(0, index.nearestK(new Location(53.55, -113.5), 0).length);
+    }
+
+    @Test
+    void testDistance() {
+        // One degree of latitude
+        assertEquals(111195, SpatialIndex.distanceMetres(53, -113, 54, -113), 1);
+        assertEquals(0, SpatialIndex.distanceMetres(53.5, -113.5, 53.5, -113.5));
+    }
+
+    @Test
+    void testEmpty() {
+        SpatialIndex index = new AssessmentColumns().getSpatialIndex();
+        assertEquals(0, index.findWithin(-90, -180, 90, 180).length);
+        assertEquals(0, index.findWithinRadius(new Location(53.5, -113.5), 1000).length);
+        assertEquals(0, index.nearestK(new Location(53.5, -113.5), 3).length);
+    }
+
+    @Test
+    void testRebuiltAfterAdd() {
+        int[] before = columns.getSpatialIndex().findWithin(10, 10, 11, 11);
+        add(10.5, 10.5);
+        assertEquals(0, before.length);
+        assertArrayEquals(new int[]{columns.size() - 1}, columns.getSpatialIndex().findWithin(10, 10, 11, 11));
+        assertArrayEquals(new int[]{columns.size() - 1}, columns.getSpatialIndex().nearestK(new Location(10, 10), 1));
+    }
+}
@@ -0,0 +1,123 @@
+package ca.macewan.c305;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatisticsSummaryTest {
+    private int[] values;
+
+    @BeforeEach
+    void setUp() {
+        Random random = new Random(305);
+        values = new int[10001];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 100000000 + random.nextInt(1000);
+        }
+    }
+
+    @Test
+    void testSummary() {
+        StatisticsSummary summary = StatisticsSummary.of(values, values.length);
+        long sum = 0;
+        for (int value : values) {
+            sum += value;
+        }
+        double mean = (double) sum / values.length;
+        double squares = 0;
+        for (int value : values) {
+            squares += (value - mean) * (value - mean);
+        }
+        int[] sorted = values.clone();
+        Arrays.sort(sorted);
+
+        assertEquals(values.length, summary.getCount());
+        assertEquals(sum, summary.getSum());
+        assertEquals(sorted[0], summary.getMin());
+        assertEquals(sorted[sorted.length - 1], summary.getMax());
+        assertEquals(mean, summary.getMean(), 1e-6);
+        assertEquals(squares / values.length, summary.getVariance(), 1e-3);
+        assertEquals(sorted[sorted.length / 2], summary.getMedian());
+    }
+
+    @Test
+    void testValuesAreNotReordered() {
+        int[] copy = values.clone();
+        StatisticsSummary.of(values, values.length);
+        assertArrayEquals(copy, values);
+    }
+
+    @Test
+    void testEmpty() {
+        StatisticsSummary summary = StatisticsSummary.of(new int[0], 0);
+        assertEquals(0, summary.getCount());
+        assertEquals(0, summary.getMean());
+        assertThrows(IndexOutOfBoundsException.class, summary::getMin);
+        assertThrows(IndexOutOfBoundsException.class, summary::getMedian);
+    }
+
+    @Test
+    void testCombine() {
+        StatisticsAccumulator all = new StatisticsAccumulator();
+        StatisticsAccumulator first = new StatisticsAccumulator();
+        StatisticsAccumulator second = new StatisticsAccumulator();
+        for (int i = 0; i < values.length; i++) {
+            all.add(values[i]);
+            (i < 3000 ? first : second).add(values[i]);
+        }
+        first.combine(second);
+        assertEquals(all.getCount(), first.getCount());
+        assertEquals(all.getSum(), first.getSum());
+        assertEquals(all.getMin(), first.getMin());
+        assertEquals(all.getMax(), first.getMax());
+        assertEquals(all.getVariance(), first.getVariance(), 1e-4);
+    }
+
+    @Test
+    void testSelect() {
+        Random random = new Random(1);
+        for (int size = 1; size < 200; size += 7) {
+            int[] data = new int[size];
+            for (int i = 0; i < size; i++) {
+                data[i] = random.nextInt(20);
+            }
+            int[] sorted = data.clone();
+            Arrays.sort(sorted);
+            for (int k = 0; k < size; k++) {
+                assertEquals(sorted[k], IntSelection.select(data.clone(), 0, size, k));
+            }
+        }
+    }
+
+    @Test
+    void testEvenMedian() {
+        // The two middle values are 20 and 30
+        StatisticsSummary summary = StatisticsSummary.of(new int[] {40, 10, 30, 20}, 4);
+        assertEquals(25, summary.getMedian());
+        assertEquals(15, StatisticsSummary.of(new int[] {10, 20}, 2).getMedian());
+    }
+
+    @Test
+    void testQuantiles() {
+        int[] sorted = values.clone();
+        Arrays.sort(sorted);
+        double[] quantiles = {0.99, 0, 0.5, 0.1, 1, 0.25, 0.333};
+        double[] result = Quantiles.of(values, values.length, quantiles);
+        for (int i = 0; i < quantiles.length; i++) {
+            double position = (sorted.length - 1) * quantiles[i];
+            int lower = (int) position;
+            double expected = lower + 1 < sorted.length
+                    ? sorted[lower] + (position - lower) * (sorted[lower + 1] - sorted[lower])
+                    : sorted[lower];
+            assertEquals(expected, result[i], 1e-6, "quantile " + quantiles[i]);
+        }
+        StatisticsSummary summary = StatisticsSummary.of(values, values.length);
+        assertEquals(result[3], summary.getP10());
+        assertEquals(result[0], summary.getP99());
+        assertThrows(IllegalArgumentException.class, () -> Quantiles.quantile(values, values.length, 1.5));
+    }
+}